@@ -0,0 +1,72 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.util.Position;
+
+/**
+ * Measures the operations on a game which depend on the size of the board,
+ * rather than on the number of moves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({ "64", "256", "1024" })
+	public int size;
+
+	@Param({ "0.001", "0.01" })
+	public double density;
+
+	private String board;
+
+	private Game game;
+
+	private BoardTemplate template;
+
+	@Setup
+	public void setup() {
+		board = BoardGenerator.generateBoard(size, size, density, 1);
+		game = new Game(size, size);
+		game.initialiseBoard(board);
+		template = BoardTemplate.parse(board, size, size);
+	}
+
+	@Benchmark
+	public Game initialiseBoard() {
+		Game g = new Game(size, size);
+		g.initialiseBoard(board);
+		return g;
+	}
+
+	@Benchmark
+	public Game newGameFromTemplate() {
+		return template.newGame();
+	}
+
+	@Benchmark
+	public String render() {
+		return game.toString();
+	}
+
+	@Benchmark
+	public boolean dotsExist() {
+		return game.dotsExist();
+	}
+
+	@Benchmark
+	public Position locatePlayer() {
+		return game.locatePlayer();
+	}
+}
@@ -0,0 +1,136 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.Random;
+
+/**
+ * Generates boards and move sequences of arbitrary size for benchmarking. The
+ * generated boards are in the textual format accepted by
+ * <code>Game.initialiseBoard()</code>.
+ */
+public final class BoardGenerator {
+
+	private BoardGenerator() {
+	}
+
+	/**
+	 * Generate a sequence of moves of a given length. The player shuttles back and
+	 * forth inside the enclosure created by <code>generateBoard()</code>, so the
+	 * sequence is valid on any generated board.
+	 *
+	 * @param length Number of moves in the sequence.
+	 * @return The sequence of moves.
+	 */
+	public static String generateSequence(int length) {
+		final String pattern = "RRLL";
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i != length; ++i) {
+			sb.append(pattern.charAt(i % pattern.length()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generate a board of a given size. The board is covered in dots, with a
+	 * regular grid of wall pillars to create plenty of intersections. The player
+	 * is placed in a small walled enclosure near the bottom-left corner, so that
+	 * ghosts cannot reach it and the game never ends. The board must be at least
+	 * 8x8 cells.
+	 *
+	 * @param width   Width of the board.
+	 * @param height  Height of the board.
+	 * @param density Fraction of open cells which start with a ghost.
+	 * @param seed    Seed used to place the ghosts.
+	 * @return The textual board.
+	 */
+	public static String generateBoard(int width, int height, double density, long seed) {
+		Random random = new Random(seed);
+		char[][] cells = new char[height][width];
+		for (int y = 0; y != height; ++y) {
+			for (int x = 0; x != width; ++x) {
+				if (x % 4 == 0 && y % 4 == 0) {
+					cells[y][x] = '#';
+				} else if (random.nextDouble() < density) {
+					cells[y][x] = "^>v<".charAt(random.nextInt(4));
+				} else {
+					cells[y][x] = '.';
+				}
+			}
+		}
+		enclosePlayer(cells);
+		return toText(cells);
+	}
+
+	/**
+	 * Generate a board with a single ghost which only ever travels along a
+	 * corridor. The board is a horizontal corridor which wraps around at the
+	 * edges, so the ghost never reaches an intersection.
+	 *
+	 * @param width Width of the board.
+	 * @return The textual board.
+	 */
+	public static String generateCorridorBoard(int width) {
+		char[][] cells = new char[8][width];
+		for (int y = 0; y != 8; ++y) {
+			for (int x = 0; x != width; ++x) {
+				cells[y][x] = y == 7 ? '.' : '#';
+			}
+		}
+		cells[7][0] = '>';
+		enclosePlayer(cells);
+		return toText(cells);
+	}
+
+	/**
+	 * Generate a board with a single ghost which is always at an intersection.
+	 * There are no walls other than the player's enclosure, so every other cell
+	 * is open on all four sides.
+	 *
+	 * @param width  Width of the board.
+	 * @param height Height of the board.
+	 * @return The textual board.
+	 */
+	public static String generateOpenBoard(int width, int height) {
+		char[][] cells = new char[height][width];
+		for (int y = 0; y != height; ++y) {
+			for (int x = 0; x != width; ++x) {
+				cells[y][x] = '.';
+			}
+		}
+		cells[height - 1][width - 1] = '<';
+		enclosePlayer(cells);
+		return toText(cells);
+	}
+
+	/**
+	 * Build a walled enclosure containing the player near the bottom-left corner.
+	 */
+	private static void enclosePlayer(char[][] cells) {
+		for (int y = 1; y <= 5; ++y) {
+			for (int x = 1; x <= 5; ++x) {
+				boolean border = x == 1 || x == 5 || y == 1 || y == 5;
+				cells[y][x] = border ? '#' : ' ';
+			}
+		}
+		cells[3][2] = 'o';
+	}
+
+	/**
+	 * Convert a grid of cells (indexed by y then x) into the textual format.
+	 */
+	private static String toText(char[][] cells) {
+		final int height = cells.length;
+		final int width = cells[0].length;
+		StringBuilder sb = new StringBuilder((width + 4) * (height + 1));
+		for (int y = height - 1; y >= 0; --y) {
+			sb.append(y % 10).append('|').append(cells[y]).append("|\n");
+		}
+		sb.append("  ");
+		for (int x = 0; x != width; ++x) {
+			sb.append(x % 10);
+		}
+		return sb.toString();
+	}
+}
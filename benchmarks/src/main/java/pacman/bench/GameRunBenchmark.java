@@ -0,0 +1,66 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.Game;
+import pacman.io.Parser;
+
+/**
+ * Measures the cost of replaying a move sequence on a board, parameterised by
+ * the size of the board, the density of ghosts and the length of the sequence.
+ * Each invocation replays the whole sequence on a freshly initialised game,
+ * though only the replay itself is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameRunBenchmark {
+
+	@Param({ "15x8", "256x256", "1024x1024", "4096x4096" })
+	public String size;
+
+	@Param({ "0.001", "0.01" })
+	public double density;
+
+	@Param({ "100", "1000" })
+	public int length;
+
+	private int width;
+
+	private int height;
+
+	private String board;
+
+	private String sequence;
+
+	private Game game;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		String[] dims = size.split("x");
+		width = Integer.parseInt(dims[0]);
+		height = Integer.parseInt(dims[1]);
+		board = BoardGenerator.generateBoard(width, height, density, 1);
+		sequence = BoardGenerator.generateSequence(length);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		game = new Parser(sequence).parse(width, height);
+		game.initialiseBoard(board);
+	}
+
+	@Benchmark
+	public Game run() {
+		game.run();
+		return game;
+	}
+}
@@ -0,0 +1,48 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.Game;
+
+/**
+ * Measures the cost of a single ghost move, split into the case where the ghost
+ * is travelling along a corridor and the case where it is at an intersection
+ * (and so has to compare distances to the player).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GhostMoveBenchmark {
+
+	private Game corridor;
+
+	private Game intersection;
+
+	@Setup
+	public void setup() {
+		corridor = new Game(64, 8);
+		corridor.initialiseBoard(BoardGenerator.generateCorridorBoard(64));
+		intersection = new Game(64, 64);
+		intersection.initialiseBoard(BoardGenerator.generateOpenBoard(64, 64));
+	}
+
+	@Benchmark
+	public Game corridor() {
+		corridor.moveGhosts();
+		return corridor;
+	}
+
+	@Benchmark
+	public Game intersection() {
+		intersection.moveGhosts();
+		return intersection;
+	}
+}
@@ -0,0 +1,61 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.Game;
+
+/**
+ * Compares the sequential ghost update against the two-phase update, on large
+ * boards with many ghosts (the larger having over 10M cells).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GhostPhaseBenchmark {
+
+	@Param({ "1024", "3200" })
+	public int size;
+
+	@Param({ "0.1" })
+	public double density;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	private Game game;
+
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		game = new Game(size, size);
+		game.initialiseBoard(BoardGenerator.generateBoard(size, size, density, 0));
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Game sequential() {
+		game.moveGhosts();
+		return game;
+	}
+
+	@Benchmark
+	public Game twoPhase() {
+		game.moveGhosts(pool);
+		return game;
+	}
+}
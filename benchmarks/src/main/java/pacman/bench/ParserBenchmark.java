@@ -0,0 +1,38 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.Game;
+import pacman.io.Parser;
+
+/**
+ * Measures the cost of parsing a move sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int length;
+
+	private String sequence;
+
+	@Setup
+	public void setup() {
+		sequence = BoardGenerator.generateSequence(length);
+	}
+
+	@Benchmark
+	public Game parse() {
+		return new Parser(sequence).parse(15, 8);
+	}
+}
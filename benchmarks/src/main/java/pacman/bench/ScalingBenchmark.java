@@ -0,0 +1,72 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pacman.Game;
+import pacman.io.Parser;
+
+/**
+ * Replays the same move sequence on boards of increasing size, in order to see
+ * how the throughput of <code>Game.run()</code> scales with board area and the
+ * number of ghosts. Throughput is reported in moves per second, so the results
+ * for different boards can be compared directly. For example:
+ *
+ * <pre>
+ * gradle :benchmarks:jmh -Pjmh="ScalingBenchmark -p density=0.001"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+	/**
+	 * Number of moves in the sequence replayed on each board.
+	 */
+	private static final int MOVES = 1000;
+
+	@Param({ "15x8", "64x64", "256x256", "1024x1024", "4096x4096" })
+	public String size;
+
+	@Param({ "0", "0.001", "0.01" })
+	public double density;
+
+	private int width;
+
+	private int height;
+
+	private String board;
+
+	private String sequence;
+
+	private Game game;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		String[] dims = size.split("x");
+		width = Integer.parseInt(dims[0]);
+		height = Integer.parseInt(dims[1]);
+		board = BoardGenerator.generateBoard(width, height, density, 1);
+		sequence = BoardGenerator.generateSequence(MOVES);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		game = new Parser(sequence).parse(width, height);
+		game.initialiseBoard(board);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVES)
+	public Game run() {
+		game.run();
+		return game;
+	}
+}
@@ -0,0 +1,72 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+/**
+ * An immutable, precompiled starting board. A template is parsed and validated
+ * once, after which any number of games can be created from it cheaply: each
+ * new game is a bulk copy of the packed board, plus a copy of the player and
+ * ghost state. Since a template is never modified, it can be shared freely
+ * between threads.
+ */
+public final class BoardTemplate {
+	/**
+	 * The game holding the starting board, which is never run or modified.
+	 */
+	private final Game prototype;
+
+	private BoardTemplate(Game prototype) {
+		this.prototype = prototype;
+	}
+
+	/**
+	 * Parse and validate a board in the textual format accepted by
+	 * <code>Game.initialiseBoard()</code>.
+	 *
+	 * @param boardString String representing board.
+	 * @param width       Width of the board (in cells)
+	 * @param height      Height of the board (in cells)
+	 * @return Template for the board.
+	 * @throws IllegalArgumentException If the board is malformed.
+	 */
+	public static BoardTemplate parse(String boardString, int width, int height) {
+		Game game = new Game(width, height);
+		game.initialiseBoard(boardString);
+		return new BoardTemplate(game);
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return Board width.
+	 */
+	public int getWidth() {
+		return prototype.getWidth();
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return Board height.
+	 */
+	public int getHeight() {
+		return prototype.getHeight();
+	}
+
+	/**
+	 * Create a new game, without any events, whose board is in the starting state
+	 * described by this template. Events can then be supplied using
+	 * <code>Game.run(EventBuffer)</code> or <code>Game.run(Iterator)</code>.
+	 *
+	 * @return A new game.
+	 */
+	public Game newGame() {
+		return new Game(prototype);
+	}
+
+	@Override
+	public String toString() {
+		return prototype.toString();
+	}
+}
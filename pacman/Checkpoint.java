@@ -0,0 +1,171 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+/**
+ * An immutable snapshot of the full state of a game after a given number of
+ * events. This includes the state which is not visible on the board, namely the
+ * direction of each ghost, whether each ghost is on a dot, and how long the
+ * player's powerup has left.
+ *
+ * A checkpoint is either a <i>keyframe</i>, which holds the whole board, or a
+ * <i>delta</i>, which holds only those cells which have changed since a
+ * previous checkpoint. The state of the player and ghosts is always held in
+ * full, since it is small compared with the board.
+ */
+public final class Checkpoint {
+	/**
+	 * Number of events which had been applied when this checkpoint was taken.
+	 */
+	private final int tick;
+
+	/**
+	 * Dimensions of the board.
+	 */
+	private final int width, height;
+
+	/**
+	 * The checkpoint which this is a delta against, or <code>null</code> if this
+	 * is a keyframe.
+	 */
+	private final Checkpoint base;
+
+	/**
+	 * The cells which changed since the base checkpoint, in ascending order, or
+	 * <code>null</code> if this is a keyframe.
+	 */
+	private final int[] changed;
+
+	/**
+	 * For a keyframe, the whole (packed) board. Otherwise, the new contents of
+	 * each changed cell.
+	 */
+	private final byte[] cells;
+
+	/**
+	 * Cell of the player (or -1 if there is none), and its remaining powerup.
+	 */
+	private final int playerCell, powerupLeft;
+
+	/**
+	 * Cell, direction (ordinal) and dot state of each ghost.
+	 */
+	private final int[] ghostCells;
+	private final byte[] ghostDirections;
+	private final boolean[] ghostOnDot;
+
+	/**
+	 * Number of dots remaining.
+	 */
+	private final int dots;
+
+	Checkpoint(int tick, int width, int height, Checkpoint base, int[] changed, byte[] cells, int playerCell,
+			int powerupLeft, int[] ghostCells, byte[] ghostDirections, boolean[] ghostOnDot, int dots) {
+		this.tick = tick;
+		this.width = width;
+		this.height = height;
+		this.base = base;
+		this.changed = changed;
+		this.cells = cells;
+		this.playerCell = playerCell;
+		this.powerupLeft = powerupLeft;
+		this.ghostCells = ghostCells;
+		this.ghostDirections = ghostDirections;
+		this.ghostOnDot = ghostOnDot;
+		this.dots = dots;
+	}
+
+	/**
+	 * Get the number of events which had been applied when this checkpoint was
+	 * taken.
+	 *
+	 * @return Number of events.
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Check whether this checkpoint holds the whole board, or only changes
+	 * against an earlier checkpoint.
+	 *
+	 * @return True if this is a keyframe.
+	 */
+	public boolean isKeyframe() {
+		return base == null;
+	}
+
+	/**
+	 * Get an estimate of the memory used by this checkpoint (excluding any base
+	 * checkpoint).
+	 *
+	 * @return Approximate size in bytes.
+	 */
+	public long sizeInBytes() {
+		long size = cells.length + ghostCells.length * 6L;
+		if (changed != null) {
+			size += changed.length * 4L;
+		}
+		return size;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	int getPlayerCell() {
+		return playerCell;
+	}
+
+	int getPowerupLeft() {
+		return powerupLeft;
+	}
+
+	int[] getGhostCells() {
+		return ghostCells;
+	}
+
+	byte[] getGhostDirections() {
+		return ghostDirections;
+	}
+
+	boolean[] getGhostOnDot() {
+		return ghostOnDot;
+	}
+
+	int getDots() {
+		return dots;
+	}
+
+	/**
+	 * Reconstruct the whole board at this checkpoint, by starting from the most
+	 * recent keyframe and applying each delta in turn.
+	 *
+	 * @param board Array to write the packed board into.
+	 */
+	void materialise(byte[] board) {
+		int depth = 0;
+		for (Checkpoint c = this; c.base != null; c = c.base) {
+			depth = depth + 1;
+		}
+		Checkpoint[] chain = new Checkpoint[depth + 1];
+		Checkpoint c = this;
+		for (int i = depth; i >= 0; --i) {
+			chain[i] = c;
+			c = c.base;
+		}
+		System.arraycopy(chain[0].cells, 0, board, 0, board.length);
+		for (int i = 1; i <= depth; ++i) {
+			int[] changed = chain[i].changed;
+			byte[] cells = chain[i].cells;
+			for (int j = 0; j != changed.length; ++j) {
+				board[changed[j]] = cells[j];
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.util.Arrays;
+
+import pacman.events.PlayerMove.Direction;
+
+/**
+ * A strategy for ghosts which follows the shortest path through the maze to the
+ * player (or, if the ghosts are frightened, moves to maximise the length of that
+ * path). At the start of each tick, a breadth-first search from the player
+ * determines the distance of every cell from the player. This costs time linear
+ * in the size of the board, but is then shared by all ghosts, each of which
+ * only has to compare the distances of its neighbours.
+ *
+ * A flow field holds the distances for a particular game, and so an instance
+ * should not be shared between games.
+ */
+public class FlowFieldStrategy implements GhostStrategy {
+	/**
+	 * Distance used for cells from which the player cannot be reached.
+	 */
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	/**
+	 * The order in which directions are considered at a junction.
+	 */
+	private static final Direction[] ORDER = { Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT };
+
+	/**
+	 * The directions of movement, indexed by ordinal.
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Distance of each cell from the player, measured in moves.
+	 */
+	private int[] distances = new int[0];
+
+	/**
+	 * Queue of cells used by the search.
+	 */
+	private int[] queue = new int[0];
+
+	@Override
+	public void prepare(Game game, TickContext tick) {
+		final int n = game.getWidth() * game.getHeight();
+		if (distances.length != n) {
+			distances = new int[n];
+			queue = new int[n];
+		}
+		Arrays.fill(distances, UNREACHABLE);
+		final int player = game.getPlayerCell();
+		if (player < 0) {
+			return;
+		}
+		// Breadth-first search outwards from the player
+		int head = 0;
+		int tail = 0;
+		distances[player] = 0;
+		queue[tail++] = player;
+		while (head != tail) {
+			final int cell = queue[head++];
+			final int open = game.getOpenNeighbours(cell);
+			final int next = distances[cell] + 1;
+			for (int d = 0; d != DIRECTIONS.length; ++d) {
+				if ((open & (1 << d)) != 0) {
+					int np = game.neighbour(cell, DIRECTIONS[d]);
+					if (distances[np] == UNREACHABLE) {
+						distances[np] = next;
+						queue[tail++] = np;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Choose the first open neighbour (in the order up, left, down, right) which
+	 * is nearest to the player along a path through the maze or, if the ghost is
+	 * frightened, furthest away.
+	 */
+	@Override
+	public int choose(Game game, TickContext tick, int cell, int open) {
+		boolean frightened = tick.isFrightened();
+		long target = frightened ? -1 : Long.MAX_VALUE;
+		int best = -1;
+
+		for (Direction d : ORDER) {
+			if ((open & (1 << d.ordinal())) != 0) {
+				int np = game.neighbour(cell, d);
+				long npDistance = distances[np];
+				if (frightened ? npDistance > target : npDistance < target) {
+					target = npDistance;
+					best = np;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Get the distance of a given cell from the player, as determined at the
+	 * start of the current tick.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return Number of moves to reach the player, or
+	 *         <code>Integer.MAX_VALUE</code> if it cannot be reached.
+	 */
+	public int getDistance(int cell) {
+		return distances[cell];
+	}
+}
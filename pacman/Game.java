@@ -4,24 +4,96 @@
 package pacman;
 
 import static pacman.tiles.Air.AIR;
+import static pacman.tiles.Dot.DOT;
+import static pacman.tiles.Pill.PILL;
+import static pacman.tiles.Wall.WALL;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import pacman.events.Event;
+import pacman.events.EventBuffer;
 import pacman.events.GameOver;
+import pacman.events.PlayerMove;
 import pacman.events.PlayerMove.Direction;
+import pacman.io.BoardLoader;
 import pacman.io.GameError;
 import pacman.tiles.*;
+import pacman.util.CellMap;
 import pacman.util.Position;
 
 /**
  * Represents the state of a game of Pacman. In particular, the game holds the
  * position of each piece on the board and the list of events.
  *
+ * A game is not thread-safe. However, distinct games share no mutable state:
+ * the only objects shared between them are the stateless tile singletons (e.g.
+ * <code>Air.AIR</code>) and immutable event objects. Hence, different games can
+ * safely be run concurrently on different threads.
+ *
  * @author David J. Pearce
  *
  */
 public class Game {
+	/**
+	 * Fewest ghosts for which the pool set by <code>setGhostPool()</code> is used.
+	 */
+	private static final int MIN_PARALLEL_GHOSTS = 4096;
+
+	/**
+	 * Number of regions the board is divided into for each thread of the pool
+	 * used by <code>moveGhosts(ForkJoinPool)</code>. Having several per thread
+	 * evens out the load when ghosts are unevenly spread.
+	 */
+	private static final int REGIONS_PER_THREAD = 4;
+
+	/**
+	 * Fewest cells in each stripe of the ghost index, and most stripes the board
+	 * is divided into. Each stripe has its own map, so small boards keep a single
+	 * map whilst large boards are divided finely enough to spread the regions of
+	 * <code>moveGhosts(ForkJoinPool)</code> evenly over the threads.
+	 */
+	private static final int MIN_STRIPE_CELLS = 1024;
+	private static final int MAX_STRIPES = 256;
+
+	// Codes used for each kind of tile in the packed board representation.
+	static final byte KIND_AIR = 0;
+	static final byte KIND_WALL = 1;
+	static final byte KIND_DOT = 2;
+	static final byte KIND_PILL = 3;
+	static final byte KIND_PLAYER = 4;
+	static final byte KIND_GHOST = 5;
+
+	/**
+	 * Mask of open neighbours for a cell with no obstructions around it.
+	 */
+	private static final byte ALL_OPEN = 0xF;
+
+	/**
+	 * The directions of movement, indexed by ordinal.
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * The character used to display a ghost, indexed by the ordinal of its
+	 * direction.
+	 */
+	private static final char[] GHOST_CHARS = { '^', 'v', '<', '>' };
+
+	/**
+	 * Indicates whether each kind of tile is an obstruction.
+	 */
+	private static final boolean[] OBSTRUCTION = { AIR.isObstruction(), WALL.isObstruction(), DOT.isObstruction(),
+			PILL.isObstruction(), false, false };
 
 	/**
 	 * Stores the width of the board.
@@ -34,15 +106,187 @@ public class Game {
 	private int height;
 
 	/**
-	 * A 2-dimensional array representing the board itself.
+	 * The board itself, packed as one byte per cell. The kind of tile at
+	 * position (x,y) is stored at index <code>y * width + x</code>. Stateless
+	 * tiles (e.g. walls and dots) are represented by shared singletons, whilst the
+	 * state of the player and each ghost is held separately.
+	 */
+	private byte[] board;
+
+	/**
+	 * The open neighbours of each cell, where bit <code>d</code> is set if the
+	 * neighbour in the direction with ordinal <code>d</code> is not an
+	 * obstruction. Since only walls are obstructions, this only changes when a
+	 * wall is placed or removed, and so ghosts can look it up rather than
+	 * examining each neighbour on every move.
 	 */
-	private Tile[][] board;
+	private byte[] open;
 
 	/**
 	 * The array of event which make up this game.
 	 */
 	private Event[] events;
 
+	/**
+	 * The encoded events which make up this game, or <code>null</code> if the
+	 * game was constructed from an array of events.
+	 */
+	private EventBuffer codes;
+
+	/**
+	 * The cell currently occupied by the player, or -1 if there is no player on
+	 * the board. This is kept up-to-date by <code>setTile()</code> and
+	 * <code>swapTile()</code>, and avoids scanning the board to find the player.
+	 */
+	private int playerCell = -1;
+
+	/**
+	 * The position of the player, which is created on demand from
+	 * <code>playerCell</code> (and is <code>null</code> when not yet created).
+	 */
+	private Position player;
+
+	/**
+	 * The player tile itself, which holds the state of any powerup.
+	 */
+	private Player playerTile;
+
+	/**
+	 * The cells (i.e. <code>y * width + x</code>) currently occupied by ghosts, in
+	 * no particular order. Only the first <code>ghostCount</code> entries are in
+	 * use.
+	 */
+	private int[] ghostCells = new int[16];
+
+	/**
+	 * The state of each ghost, where <code>ghostDirections[i]</code> is the
+	 * direction (ordinal) of the ghost located at <code>ghostCells[i]</code>, and
+	 * <code>ghostOnDot[i]</code> indicates whether it is on a dot. Keeping this in
+	 * flat arrays, rather than in an object per ghost, means the ghost phase
+	 * sweeps over contiguous memory.
+	 */
+	private byte[] ghostDirections = new byte[16];
+	private boolean[] ghostOnDot = new boolean[16];
+
+	/**
+	 * Number of ghosts currently on the board.
+	 */
+	private int ghostCount;
+
+	/**
+	 * Maps each ghost cell to its slot in <code>ghostCells</code>,
+	 * <code>ghostDirections</code> and <code>ghostOnDot</code>. The board is
+	 * divided into stripes of <code>stripeCells</code> cells (a whole number of
+	 * rows), each with its own map, so that the ghosts in different stripes can be
+	 * moved concurrently.
+	 */
+	private final CellMap[] ghostSlots;
+
+	/**
+	 * Number of cells in each stripe of <code>ghostSlots</code>.
+	 */
+	private final int stripeCells;
+
+	/**
+	 * Number of dots remaining in the game. This includes both the dots on the
+	 * board, and those currently underneath a ghost.
+	 */
+	private int dots;
+
+	/**
+	 * Scratch space used to hold the ghost cells at the start of a tick.
+	 */
+	private int[] tickGhosts = new int[16];
+
+	/**
+	 * Information about the player shared by all ghosts during a tick.
+	 */
+	private final TickContext tick = new TickContext();
+
+	/**
+	 * Counts the changes to the state from which <code>tick</code> and the ghost
+	 * strategy are prepared, i.e. the tick itself, the position of the player,
+	 * the walls and the strategy. The tick is only prepared again when this
+	 * differs from <code>preparedChanges</code>, and so ghosts moved one at a time
+	 * by <code>moveGhost()</code> share a single preparation.
+	 */
+	private long changes;
+
+	/**
+	 * The value of <code>changes</code> when <code>tick</code> was last prepared,
+	 * or -1 if it never has been.
+	 */
+	private long preparedChanges = -1;
+
+	/**
+	 * The decision made by each ghost in <code>tickGhosts</code> during a
+	 * two-phase update, and the direction it had when making it.
+	 */
+	private int[] tickDecisions = new int[0];
+	private byte[] tickDirections = new byte[0];
+
+	/**
+	 * The regions of the board used by the most recent two-phase update, which are
+	 * reused from one tick to the next.
+	 */
+	private GhostRegion[] tickRegions = new GhostRegion[0];
+
+	/**
+	 * Pool used to move the ghosts when there are many of them, or
+	 * <code>null</code> if they are always moved on the current thread.
+	 */
+	private ForkJoinPool ghostPool;
+
+	/**
+	 * Strategy used by ghosts at junctions.
+	 */
+	private GhostStrategy ghostStrategy = GreedyStrategy.GREEDY;
+
+	/**
+	 * Number of events which have been applied to this game.
+	 */
+	private int eventsApplied;
+
+	/**
+	 * Description of the rule broken by the most recent invalid step.
+	 */
+	private String invalidReason;
+
+	/**
+	 * Number of events between the checkpoints recorded by <code>run()</code>,
+	 * or 0 if no checkpoints are recorded.
+	 */
+	private int checkpointInterval;
+
+	/**
+	 * Number of checkpoints between keyframes, i.e. checkpoints which hold the
+	 * whole board rather than just the changes since the previous checkpoint.
+	 */
+	private int keyframeInterval;
+
+	/**
+	 * The checkpoints recorded so far, in order.
+	 */
+	private ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+
+	/**
+	 * The cells which have been modified since the most recent checkpoint was
+	 * recorded (possibly with duplicates). Only the first <code>dirtyCount</code>
+	 * entries are in use.
+	 */
+	private int[] dirty = new int[16];
+
+	/**
+	 * Number of entries in <code>dirty</code>.
+	 */
+	private int dirtyCount;
+
+	/**
+	 * Recorder which is told of every modified cell, or <code>null</code> if no
+	 * trace is being recorded.
+	 */
+	private TraceRecorder trace;
+
 	/**
 	 * Construct a game of Pacman
 	 *
@@ -55,7 +299,68 @@ public class Game {
 		this.events = events;
 		this.width = width;
 		this.height = height;
-		board = new Tile[height][width];
+		board = new byte[width * height];
+		open = new byte[width * height];
+		Arrays.fill(open, ALL_OPEN);
+		final int stripeRows = Math.max((MIN_STRIPE_CELLS + width - 1) / Math.max(width, 1),
+				(height + MAX_STRIPES - 1) / MAX_STRIPES);
+		stripeCells = Math.max(stripeRows * width, 1);
+		ghostSlots = new CellMap[Math.max((height + stripeRows - 1) / stripeRows, 1)];
+		for (int i = 0; i != ghostSlots.length; ++i) {
+			ghostSlots[i] = new CellMap();
+		}
+	}
+
+	/**
+	 * Construct a game of Pacman from an encoded sequence of events.
+	 *
+	 * @param width  Width of the board (in cells)
+	 * @param height Height of the board (in cells)
+	 *
+	 * @param events --- The encoded events that make up the game
+	 */
+	public Game(int width, int height, EventBuffer events) {
+		this(width, height, (Event[]) null);
+		this.codes = events;
+	}
+
+	/**
+	 * Construct a game of Pacman without any events. Events can then be supplied
+	 * as they become available using <code>run(Iterator)</code>.
+	 *
+	 * @param width  Width of the board (in cells)
+	 * @param height Height of the board (in cells)
+	 */
+	public Game(int width, int height) {
+		this(width, height, new Event[0]);
+	}
+
+	/**
+	 * Construct a game of Pacman, without any events, whose board is a copy of
+	 * that in a given game. This copies the packed board in bulk, and then copies
+	 * the state of the player and the ghosts.
+	 *
+	 * @param other The game to copy.
+	 */
+	Game(Game other) {
+		this.events = new Event[0];
+		this.width = other.width;
+		this.height = other.height;
+		this.board = other.board.clone();
+		this.open = other.open.clone();
+		this.playerCell = other.playerCell;
+		this.player = other.player;
+		this.playerTile = other.playerTile == null ? null : new Player(other.playerTile);
+		this.ghostCells = other.ghostCells.clone();
+		this.ghostDirections = other.ghostDirections.clone();
+		this.ghostOnDot = other.ghostOnDot.clone();
+		this.ghostCount = other.ghostCount;
+		this.stripeCells = other.stripeCells;
+		this.ghostSlots = new CellMap[other.ghostSlots.length];
+		for (int i = 0; i != ghostSlots.length; ++i) {
+			ghostSlots[i] = new CellMap(other.ghostSlots[i]);
+		}
+		this.dots = other.dots;
 	}
 
 	/**
@@ -83,7 +388,29 @@ public class Game {
 	 * @return True if the game is over.
 	 */
 	public boolean isGameOver() {
-		return false;
+		return dots == 0 || playerCell < 0;
+	}
+
+	/**
+	 * The possible outcomes of a single step of a game.
+	 */
+	public enum Outcome {
+		/**
+		 * The step was applied, and the game is not yet over.
+		 */
+		ONGOING,
+		/**
+		 * The step was applied, and all of the dots have now been collected.
+		 */
+		WON,
+		/**
+		 * The step was applied, and the player has now been eaten.
+		 */
+		LOST,
+		/**
+		 * The step broke the rules of Pacman, and was not applied.
+		 */
+		INVALID
 	}
 
 	/**
@@ -91,40 +418,803 @@ public class Game {
 	 * against the rules of Pacman.
 	 */
 	public void run() {
-		for (int i = 0; i != events.length; ++i) {
-			Event move = events[i];
-			if (dotsExist() || move instanceof GameOver) {
-				move.apply(this);
-			} else {
-				throw new GameError("Cannot move as game is over");
+		if (codes != null) {
+			// Fast path which avoids dispatching through event objects
+			run(codes);
+		} else {
+			for (int i = 0; i != events.length; ++i) {
+				check(step(events[i]));
 			}
+		}
+	}
 
-			// run move ghosts unless game over has been called
-			if (!(move instanceof GameOver)) {
-				moveGhosts();
+	/**
+	 * Run this game over a given sequence of encoded events, whilst checking each
+	 * move against the rules of Pacman.
+	 *
+	 * @param events The encoded events to apply.
+	 */
+	public void run(EventBuffer events) {
+		run(events, 0, events.size());
+	}
+
+	/**
+	 * Run this game over part of a sequence of encoded events. This is useful
+	 * for resuming a game after it has been restored from a checkpoint.
+	 *
+	 * @param events The encoded events.
+	 * @param from   Index of first event to apply.
+	 * @param to     Index after the last event to apply.
+	 */
+	public void run(EventBuffer events, int from, int to) {
+		final byte[] cs = events.codes();
+		if (events.runCount() == events.size()) {
+			// Every run is a single event
+			for (int i = from; i != to; ++i) {
+				check(step(cs[i]));
+			}
+			return;
+		}
+		// Expand each run as it is reached
+		int i = from;
+		for (int run = i < to ? events.runOf(i) : 0; i < to; ++run) {
+			final byte code = cs[run];
+			final int end = Math.min(to, events.runEnd(run));
+			for (; i != end; ++i) {
+				check(step(code));
 			}
 		}
 	}
 
 	/**
-	 * Move all ghosts in the game.
+	 * Run this game over a given sequence of events, whilst checking each move
+	 * against the rules of Pacman. Events are consumed one at a time as they are
+	 * applied, which means they can be produced on demand (e.g. by
+	 * <code>Parser.stream()</code>).
+	 *
+	 * @param events The events to apply.
 	 */
-	private void moveGhosts() {
-		// get all ghosts
-		ArrayList<Position> ghosts = new ArrayList<Position>();
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				if (board[y][x] instanceof Ghost) {
-					ghosts.add(new Position(x, y));
+	public void run(Iterator<? extends Event> events) {
+		while (events.hasNext()) {
+			check(step(events.next()));
+		}
+	}
+
+	/**
+	 * Report an error if a step was invalid.
+	 *
+	 * @param outcome The outcome of the step.
+	 */
+	private void check(Outcome outcome) {
+		if (outcome == Outcome.INVALID) {
+			throw new GameError(invalidReason);
+		}
+	}
+
+	/**
+	 * Move the player one cell in a given direction, followed by the movement of
+	 * the ghosts. This is intended for live play, where moves arrive one at a
+	 * time. Breaking the rules (e.g. moving after the game is over) does not throw
+	 * an exception, but is instead reported by the outcome.
+	 *
+	 * @param direction The direction in which to move the player.
+	 * @return The outcome of this step.
+	 */
+	public Outcome step(Direction direction) {
+		return step((byte) direction.ordinal());
+	}
+
+	/**
+	 * Apply a single event to this game, followed by the movement of the ghosts
+	 * (unless the event is game over). Breaking the rules does not throw an
+	 * exception, but is instead reported by the outcome.
+	 *
+	 * @param event The event to apply.
+	 * @return The outcome of this step.
+	 */
+	public Outcome step(Event event) {
+		if (event instanceof PlayerMove) {
+			return step(((PlayerMove) event).getDirection());
+		} else if (event instanceof GameOver) {
+			return step(((GameOver) event).isWon() ? EventBuffer.WON : EventBuffer.LOST);
+		}
+		// Some other kind of event, which checks itself
+		if (isGameOver()) {
+			return invalid("Cannot move as game is over");
+		}
+		try {
+			event.apply(this);
+		} catch (GameError e) {
+			return invalid(e.getMessage());
+		}
+		moveGhosts();
+		return applied();
+	}
+
+	/**
+	 * Apply a single encoded event to this game, followed by the movement of the
+	 * ghosts (unless the event is game over). This behaves exactly as
+	 * <code>step(Event)</code> does for the corresponding event object.
+	 *
+	 * @param code The code of the event to apply.
+	 * @return The outcome of this step.
+	 */
+	public Outcome step(byte code) {
+		switch (code) {
+			case EventBuffer.WON:
+				if (dotsExist()) {
+					return invalid("Incorrect game over event");
+				}
+				break;
+			case EventBuffer.LOST:
+				if (playerCell >= 0) {
+					return invalid("Incorrect game over event");
+				}
+				break;
+			default:
+				if (isGameOver()) {
+					return invalid("Cannot move as game is over");
+				}
+				playerTile.move(this, playerCell, EventBuffer.direction(code));
+				moveGhosts();
+		}
+		return applied();
+	}
+
+	/**
+	 * Get the reason why the most recent invalid step was rejected.
+	 *
+	 * @return Description of the broken rule, or <code>null</code> if no step
+	 *         has been invalid.
+	 */
+	public String getInvalidReason() {
+		return invalidReason;
+	}
+
+	/**
+	 * Record that a step was rejected.
+	 *
+	 * @param reason Description of the broken rule.
+	 * @return The invalid outcome.
+	 */
+	private Outcome invalid(String reason) {
+		invalidReason = reason;
+		return Outcome.INVALID;
+	}
+
+	/**
+	 * Record that an event has been applied, taking a checkpoint if one is due.
+	 *
+	 * @return The outcome of the event.
+	 */
+	private Outcome applied() {
+		eventsApplied = eventsApplied + 1;
+		changes = changes + 1;
+		if (checkpointInterval > 0 && eventsApplied % checkpointInterval == 0) {
+			recordCheckpoint();
+		}
+		if (trace != null) {
+			trace.endTick(this);
+		}
+		if (playerCell < 0) {
+			return Outcome.LOST;
+		} else if (dots == 0) {
+			return Outcome.WON;
+		} else {
+			return Outcome.ONGOING;
+		}
+	}
+
+	/**
+	 * Get the number of events which have been applied to this game.
+	 *
+	 * @return Number of events.
+	 */
+	public int getEventsApplied() {
+		return eventsApplied;
+	}
+
+	/**
+	 * Record checkpoints periodically whilst this game is run. A checkpoint of the
+	 * current state is recorded straight away, and then another after every
+	 * <code>interval</code> events. To keep them small, most checkpoints record
+	 * only the cells which have changed since the previous checkpoint, with every
+	 * <code>keyframeInterval</code>-th checkpoint holding the whole board.
+	 *
+	 * @param interval         Number of events between checkpoints, or 0 to stop
+	 *                         recording checkpoints.
+	 * @param keyframeInterval Number of checkpoints between keyframes.
+	 */
+	public void setCheckpointPolicy(int interval, int keyframeInterval) {
+		if (interval < 0 || keyframeInterval < 1) {
+			throw new IllegalArgumentException("invalid checkpoint policy");
+		}
+		this.checkpointInterval = interval;
+		this.keyframeInterval = keyframeInterval;
+		this.checkpoints = new ArrayList<>();
+		if (interval > 0) {
+			recordCheckpoint();
+		}
+	}
+
+	/**
+	 * Get the checkpoints recorded whilst running this game, in the order they
+	 * were recorded.
+	 *
+	 * @return The checkpoints.
+	 */
+	public List<Checkpoint> getCheckpoints() {
+		return Collections.unmodifiableList(checkpoints);
+	}
+
+	/**
+	 * Record a checkpoint of the current state, which is a delta against the
+	 * previous recorded checkpoint unless a keyframe is due.
+	 */
+	private void recordCheckpoint() {
+		final int n = checkpoints.size();
+		if (n > 0 && checkpoints.get(n - 1).getTick() == eventsApplied) {
+			// Nothing has happened since the previous checkpoint
+			return;
+		}
+		Checkpoint cp;
+		if (n % keyframeInterval == 0) {
+			cp = checkpoint();
+		} else {
+			// Determine the distinct cells which have changed
+			Arrays.sort(dirty, 0, dirtyCount);
+			int count = 0;
+			for (int i = 0; i != dirtyCount; ++i) {
+				if (i == 0 || dirty[i] != dirty[i - 1]) {
+					dirty[count++] = dirty[i];
 				}
 			}
+			int[] changed = Arrays.copyOf(dirty, count);
+			byte[] cells = new byte[count];
+			for (int i = 0; i != count; ++i) {
+				cells[i] = board[changed[i]];
+			}
+			cp = snapshot(checkpoints.get(n - 1), changed, cells);
+		}
+		checkpoints.add(cp);
+		dirtyCount = 0;
+	}
+
+	/**
+	 * Compute a hash of the full state of this game, including the state which is
+	 * not visible on the board (i.e. the direction of each ghost, whether each
+	 * ghost is on a dot, and the player's remaining powerup). Two games in the same
+	 * state always have the same hash, and so hashes recorded from a trusted run
+	 * can be used as a cheap reference for later runs.
+	 *
+	 * @return A 64-bit FNV-1a hash of the state.
+	 */
+	public long stateHash() {
+		long hash = 0xcbf29ce484222325L;
+		for (int cell = 0; cell != board.length; ++cell) {
+			byte kind = board[cell];
+			hash = (hash ^ kind) * 0x100000001b3L;
+			if (kind == KIND_GHOST) {
+				int slot = slotOf(cell);
+				int hidden = ghostDirections[slot] << 1 | (ghostOnDot[slot] ? 1 : 0);
+				hash = (hash ^ hidden) * 0x100000001b3L;
+			}
+		}
+		hash = (hash ^ getPowerupLeft()) * 0x100000001b3L;
+		return hash;
+	}
+
+	/**
+	 * Take a checkpoint of the full state of this game, which can later be passed
+	 * to <code>restore()</code>.
+	 *
+	 * @return The checkpoint.
+	 */
+	public Checkpoint checkpoint() {
+		return snapshot(null, null, board.clone());
+	}
+
+	/**
+	 * Create a checkpoint with given board contents, along with the current state
+	 * of the player and ghosts.
+	 */
+	private Checkpoint snapshot(Checkpoint base, int[] changed, byte[] cells) {
+		int[] cs = Arrays.copyOf(ghostCells, ghostCount);
+		byte[] directions = Arrays.copyOf(ghostDirections, ghostCount);
+		boolean[] onDot = Arrays.copyOf(ghostOnDot, ghostCount);
+		return new Checkpoint(eventsApplied, width, height, base, changed, cells, playerCell, getPowerupLeft(), cs,
+				directions, onDot, dots);
+	}
+
+	/**
+	 * Restore this game to the state recorded in a given checkpoint. Any recorded
+	 * checkpoints taken from that point on are discarded, and the reason for any
+	 * earlier invalid step is forgotten.
+	 *
+	 * @param checkpoint The checkpoint to restore.
+	 */
+	public void restore(Checkpoint checkpoint) {
+		if (checkpoint.getWidth() != width || checkpoint.getHeight() != height) {
+			throw new IllegalArgumentException("checkpoint is for a different board size");
+		}
+		checkpoint.materialise(board);
+		for (int cell = 0; cell != board.length; ++cell) {
+			updateOpen(cell);
+		}
+		// Restore the player
+		movePlayer(checkpoint.getPlayerCell());
+		playerTile = playerCell < 0 ? null : new Player(checkpoint.getPowerupLeft());
+		// Restore the ghosts
+		for (CellMap slots : ghostSlots) {
+			slots.clear();
+		}
+		ghostCount = 0;
+		final int[] cells = checkpoint.getGhostCells();
+		final byte[] directions = checkpoint.getGhostDirections();
+		final boolean[] onDot = checkpoint.getGhostOnDot();
+		for (int i = 0; i != cells.length; ++i) {
+			addGhost(cells[i], directions[i], onDot[i]);
+		}
+		dots = checkpoint.getDots();
+		eventsApplied = checkpoint.getTick();
+		changes = changes + 1;
+		invalidReason = null;
+		// Discard any checkpoints from this tick on, and start afresh with a
+		// keyframe
+		if (checkpointInterval > 0) {
+			int n = 0;
+			while (n < checkpoints.size() && checkpoints.get(n).getTick() < eventsApplied) {
+				n = n + 1;
+			}
+			checkpoints = new ArrayList<>(checkpoints.subList(0, n));
+			checkpoints.add(checkpoint());
 		}
+		dirtyCount = 0;
+		if (trace != null) {
+			// The board was overwritten in bulk
+			for (int cell = 0; cell != board.length; ++cell) {
+				trace.touch(cell);
+			}
+		}
+	}
 
+	/**
+	 * Record a trace of the changes made to this game by each subsequent step.
+	 * The current state is recorded straight away.
+	 *
+	 * @param recorder The recorder to use, or <code>null</code> to stop recording.
+	 */
+	public void setTraceRecorder(TraceRecorder recorder) {
+		this.trace = recorder;
+		if (recorder != null) {
+			recorder.start(this);
+		}
+	}
+
+	/**
+	 * Get the code of a given cell as recorded in a trace. This is the kind of
+	 * the tile in the packed board, along with the direction (bits 3-4) and dot
+	 * state (bit 5) of a ghost.
+	 *
+	 * @param cell Cell index.
+	 * @return Code of the cell.
+	 */
+	int traceCode(int cell) {
+		final byte kind = board[cell];
+		if (kind != KIND_GHOST) {
+			return kind;
+		}
+		final int slot = slotOf(cell);
+		return kind | ghostDirections[slot] << 3 | (ghostOnDot[slot] ? 32 : 0);
+	}
+
+	/**
+	 * Get the remaining powerup of the player.
+	 *
+	 * @return Remaining powerup, or 0 if there is no player.
+	 */
+	int getPowerupLeft() {
+		return playerTile == null ? 0 : playerTile.getPowerupLeft();
+	}
+
+	/**
+	 * Record that a cell has been modified, if checkpoints or a trace are being
+	 * recorded.
+	 *
+	 * @param cell Cell index which was modified.
+	 */
+	private void markDirty(int cell) {
+		if (checkpointInterval > 0) {
+			if (dirtyCount == dirty.length) {
+				dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+			}
+			dirty[dirtyCount++] = cell;
+		}
+		if (trace != null) {
+			trace.touch(cell);
+		}
+	}
+
+	/**
+	 * Move all ghosts in the game. Ghosts are moved in row-major order of their
+	 * positions at the start of the tick, starting from the bottom row. If a pool
+	 * has been set with <code>setGhostPool()</code> and there are enough ghosts,
+	 * this uses the two-phase update of <code>moveGhosts(ForkJoinPool)</code>.
+	 */
+	public void moveGhosts() {
+		if (ghostPool != null && ghostCount >= MIN_PARALLEL_GHOSTS) {
+			moveGhosts(ghostPool);
+			return;
+		}
+		final int n = snapshotGhosts();
 		// move all ghosts
-		for (Position ghost : ghosts) {
-			Ghost g = (Ghost) getTile(ghost);
-			g.move(this, ghost);
+		for (int i = 0; i != n; ++i) {
+			int cell = tickGhosts[i];
+			int direction = ghostDirections[slotOf(cell)];
+			commitGhost(cell, Ghost.decide(this, tick, cell, direction));
+		}
+	}
+
+	/**
+	 * Move the ghost in a given cell one position, independently of any other
+	 * ghosts.
+	 *
+	 * @param cell Cell index of the ghost.
+	 */
+	public void moveGhost(int cell) {
+		prepareTick();
+		int direction = ghostDirections[slotOf(cell)];
+		commitGhost(cell, Ghost.decide(this, tick, cell, direction));
+	}
+
+	/**
+	 * Get the direction of the ghost in a given cell.
+	 *
+	 * @param cell Cell index of the ghost.
+	 * @return Ordinal of the ghost's direction.
+	 */
+	int getGhostDirection(int cell) {
+		return ghostDirections[slotOf(cell)];
+	}
+
+	/**
+	 * Carry out a decision made by <code>Ghost.decide()</code> for the ghost in a
+	 * given cell, updating the board and dealing with any collision with the
+	 * player or pickup of a dot.
+	 *
+	 * @param cell     Cell index of the ghost.
+	 * @param decision The decision to carry out.
+	 */
+	private void commitGhost(int cell, int decision) {
+		final int np = decision >>> 2;
+		int slot = slotOf(cell);
+
+		// deal with player collision
+		byte kind = board[np];
+		if (kind == KIND_PLAYER) {
+			if (tick.isFrightened()) {
+				// kill itself
+				setTile(cell, AIR);
+				return;
+			}
+			setTile(np, AIR);
+			kind = KIND_AIR;
+		}
+
+		// if the ghost is on a dot, this is updated at the end to preserve current
+		// state of it has a dot.
+		boolean updateOnDot = false;
+
+		if (kind == KIND_DOT) {
+			setTile(np, AIR);
+			updateOnDot = true;
+		}
+		// update the direction to match the option taken
+		ghostDirections[slot] = (byte) (decision & 3);
+		swapTile(cell, np);
+
+		// if the ghost was on a dot place it back.
+		if (ghostOnDot[slot]) {
+			// this overwrites any ghost which was swapped into the cell, which can
+			// change the slot of this ghost
+			setTile(cell, DOT);
+			slot = slotOf(np);
+			if (slot < 0) {
+				// the ghost swapped places with itself, and so has been overwritten
+				// (which has already accounted for the dot it was on)
+				return;
+			}
+			dots = dots - 1;
+			ghostOnDot[slot] = false;
+		}
+		// update the on dot state
+		if (updateOnDot) {
+			ghostOnDot[slot] = true;
+			dots = dots + 1;
+		}
+	}
+
+	/**
+	 * Move all ghosts in the game using a two-phase update, which produces
+	 * exactly the same result as <code>moveGhosts()</code>. The board is divided
+	 * into regions of whole stripes of the ghost index, and the ghosts in each
+	 * region are grouped together. In the first phase, each region's ghosts are
+	 * sorted and decide where to move in parallel. This is safe because a decision
+	 * depends only on the ghost's cell and direction, the walls and the
+	 * information prepared at the start of the tick (e.g. the position of the
+	 * player, which cannot change during the ghost phase). A ghost on the edge of
+	 * a region looks into the adjacent row of the next region (wrapping around the
+	 * board as <code>neighbour()</code> does), but these halo rows need no copying
+	 * as the board is not modified in this phase.
+	 *
+	 * In the second phase, each region carries out its decisions in order and in
+	 * parallel with the other regions, provided a move only involves cells in the
+	 * region and does not change the number of ghosts or dots. Any other move
+	 * (e.g. across the border of a region, or onto the player) is deferred to a
+	 * serial pass, along with any later move which reads or writes a cell which a
+	 * deferred move may touch. Likewise, a ghost which moves across a border in
+	 * the sequential order before the ghosts of the region it enters taints its
+	 * target cell in advance, so every move which depends on another is carried
+	 * out after it. Finally, the deferred moves are carried out one at a time in
+	 * the same order as <code>moveGhosts()</code>, so that collisions with the
+	 * player and other ghosts, and the pickup of dots, are resolved as before.
+	 *
+	 * A ghost can swap places with a ghost which has not yet moved, in which case
+	 * it moves again from its new cell. Since a decision depends only on the cell
+	 * and direction, the decision made in the first phase is still used if the
+	 * ghost now in the cell has the same direction as the one which made it.
+	 * Otherwise, the ghost decides afresh. A ghost which is completely enclosed by
+	 * walls swaps places with one of them, and so on any tick where this happens
+	 * all the decisions are carried out serially, with every later ghost deciding
+	 * afresh once the wall has moved.
+	 *
+	 * @param pool The pool used to move the ghosts.
+	 */
+	public void moveGhosts(ForkJoinPool pool) {
+		final int n = ghostCount;
+		if (n == 0) {
+			return;
+		}
+		if (tickGhosts.length < n) {
+			tickGhosts = new int[ghostCells.length];
+		}
+		if (tickDecisions.length < n) {
+			tickDecisions = new int[tickGhosts.length];
+			tickDirections = new byte[tickGhosts.length];
+		}
+		// the player cannot move whilst the ghosts are moving
+		prepareTick();
+		// divide the board into regions of whole stripes, and group the ghosts by
+		// region
+		final int stripes = ghostSlots.length;
+		final int perRegion = (stripes + pool.getParallelism() * REGIONS_PER_THREAD - 1)
+				/ (pool.getParallelism() * REGIONS_PER_THREAD);
+		final int count = (stripes + perRegion - 1) / perRegion;
+		final int regionSize = perRegion * stripeCells;
+		final int[] starts = partitionGhosts(regionSize, count);
+		if (tickRegions.length < count) {
+			tickRegions = Arrays.copyOf(tickRegions, count);
+			for (int r = 0; r != count; ++r) {
+				if (tickRegions[r] == null) {
+					tickRegions[r] = new GhostRegion();
+				}
+			}
+		}
+		final GhostRegion[] regions = tickRegions;
+		boolean enclosed = false;
+		for (int r = 0; r != count; ++r) {
+			int lo = r * regionSize;
+			int hi = r == count - 1 ? board.length : lo + regionSize;
+			regions[r].reset(starts[r], starts[r + 1], lo, hi);
+		}
+		// sort the ghosts and decide where each will move, one region per task
+		pool.invoke(new GhostDecisions(this, tick, tickGhosts, tickDirections, tickDecisions, regions, 0, count));
+		for (int r = 0; r != count; ++r) {
+			enclosed |= regions[r].enclosed;
+		}
+		if (enclosed) {
+			// carry out the decisions in order
+			boolean wallMoved = false;
+			for (int i = 0; i != n; ++i) {
+				int cell = tickGhosts[i];
+				int direction = ghostDirections[slotOf(cell)];
+				int decision = tickDecisions[i];
+				if (wallMoved || direction != tickDirections[i]) {
+					decision = Ghost.decide(this, tick, cell, direction);
+				}
+				wallMoved |= isObstruction(decision >>> 2);
+				commitGhost(cell, decision);
+			}
+			return;
+		}
+		// a ghost in the row below a region may move up into it, and a ghost in the
+		// bottom row may move down into the top row, before that region's ghosts
+		// move
+		for (int r = 1; r < count; ++r) {
+			final GhostRegion below = regions[r - 1];
+			final int border = regions[r].lo - width;
+			for (int i = below.to - 1; i >= below.from && tickGhosts[i] >= border; --i) {
+				regions[r].taint(tickGhosts[i] + width);
+			}
+		}
+		if (count > 1) {
+			final GhostRegion first = regions[0];
+			for (int i = first.from; i != first.to && tickGhosts[i] < width; ++i) {
+				regions[count - 1].taint(tickGhosts[i] + board.length - width);
+			}
+		}
+		// carry out the moves within each region, one region per task
+		pool.invoke(new GhostCommits(this, regions, 0, count));
+		// carry out the deferred moves in order
+		for (int r = 0; r != count; ++r) {
+			final GhostRegion region = regions[r];
+			for (int j = 0; j != region.touchedCount; ++j) {
+				markDirty(region.touched[j]);
+			}
+			for (int j = 0; j != region.deferredCount; ++j) {
+				int i = region.deferred[j];
+				int cell = tickGhosts[i];
+				int direction = ghostDirections[slotOf(cell)];
+				int decision = tickDecisions[i];
+				if (direction != tickDirections[i]) {
+					decision = Ghost.decide(this, tick, cell, direction);
+				}
+				commitGhost(cell, decision);
+			}
+		}
+	}
+
+	/**
+	 * Carry out the decisions for the ghosts in a given region during the second
+	 * phase of <code>moveGhosts(ForkJoinPool)</code>. A move is carried out here
+	 * only if it reads and writes cells in the region which no deferred move may
+	 * touch, and neither kills nor removes a ghost or the player. Such a move only
+	 * modifies the region's cells and stripes of the ghost index, and the slot of
+	 * the ghosts involved, and leaves the number of dots unchanged (a dot which
+	 * is picked up is held by the ghost). Every other move is deferred, and taints
+	 * the cells it may touch.
+	 *
+	 * @param region The region whose ghosts to move.
+	 */
+	void commitRegion(GhostRegion region) {
+		final boolean record = checkpointInterval > 0 || trace != null;
+		for (int i = region.from; i != region.to; ++i) {
+			final int cell = tickGhosts[i];
+			if (region.isTainted(cell)) {
+				// which ghost is here, and where it goes, depends on a deferred move
+				region.defer(i);
+				region.taint(cell);
+				for (Direction d : DIRECTIONS) {
+					region.taint(neighbour(cell, d));
+				}
+				continue;
+			}
+			final int slot = slotOf(cell);
+			final int direction = ghostDirections[slot];
+			int decision = tickDecisions[i];
+			if (direction != tickDirections[i]) {
+				decision = Ghost.decide(this, tick, cell, direction);
+			}
+			final int np = decision >>> 2;
+			if (np == cell || !region.contains(np) || region.isTainted(np) || board[np] == KIND_PLAYER
+					|| (board[np] == KIND_GHOST && ghostOnDot[slot])) {
+				region.defer(i);
+				region.taint(cell);
+				region.taint(np);
+				continue;
+			}
+			// the same as commitGhost(), for the cases which remain
+			byte kind = board[np];
+			final boolean pickUp = kind == KIND_DOT;
+			if (pickUp) {
+				kind = KIND_AIR;
+			}
+			ghostDirections[slot] = (byte) (decision & 3);
+			board[np] = KIND_GHOST;
+			if (kind == KIND_GHOST) {
+				swapGhosts(cell, np);
+			} else {
+				relocateGhost(cell, np);
+			}
+			board[cell] = ghostOnDot[slot] ? KIND_DOT : kind;
+			ghostOnDot[slot] = pickUp;
+			if (record) {
+				region.touch(cell);
+				region.touch(np);
+			}
+		}
+	}
+
+	/**
+	 * Copy the cells of all ghosts into <code>tickGhosts</code>, grouped into
+	 * regions of a given size. Since each region is a contiguous range of cells,
+	 * sorting each group separately puts all the ghosts in ascending order.
+	 *
+	 * @param regionSize Number of cells in each region.
+	 * @param regions    Number of regions.
+	 * @return The index in <code>tickGhosts</code> of the first ghost in each
+	 *         region, followed by the total number of ghosts.
+	 */
+	private int[] partitionGhosts(int regionSize, int regions) {
+		final int n = ghostCount;
+		final int[] starts = new int[regions + 1];
+		for (int i = 0; i != n; ++i) {
+			starts[ghostCells[i] / regionSize + 1]++;
+		}
+		for (int r = 0; r != regions; ++r) {
+			starts[r + 1] += starts[r];
+		}
+		final int[] next = Arrays.copyOf(starts, regions);
+		for (int i = 0; i != n; ++i) {
+			int cell = ghostCells[i];
+			tickGhosts[next[cell / regionSize]++] = cell;
+		}
+		return starts;
+	}
+
+	/**
+	 * Use a given pool to move the ghosts on each tick when there are many of
+	 * them (see <code>moveGhosts(ForkJoinPool)</code>).
+	 *
+	 * @param pool The pool to use, or <code>null</code> to always move the ghosts
+	 *             on the current thread.
+	 */
+	public void setGhostPool(ForkJoinPool pool) {
+		this.ghostPool = pool;
+	}
+
+	/**
+	 * Get the strategy used by ghosts at junctions.
+	 *
+	 * @return The strategy.
+	 */
+	public GhostStrategy getGhostStrategy() {
+		return ghostStrategy;
+	}
+
+	/**
+	 * Set the strategy used by ghosts at junctions. By default, this is
+	 * <code>GreedyStrategy.GREEDY</code>.
+	 *
+	 * @param strategy The strategy to use.
+	 */
+	public void setGhostStrategy(GhostStrategy strategy) {
+		this.ghostStrategy = strategy;
+		changes = changes + 1;
+	}
+
+	/**
+	 * Record the cells of all ghosts at the start of the tick in ascending order
+	 * (i.e. the order in which they move), along with the player information for
+	 * the tick.
+	 *
+	 * @return Number of ghosts.
+	 */
+	private int snapshotGhosts() {
+		// get all ghosts
+		final int n = ghostCount;
+		if (tickGhosts.length < n) {
+			tickGhosts = new int[ghostCells.length];
+		}
+		System.arraycopy(ghostCells, 0, tickGhosts, 0, n);
+		Arrays.sort(tickGhosts, 0, n);
+		// the player cannot move whilst the ghosts are moving, and without any
+		// ghosts there is nothing to prepare
+		if (n != 0) {
+			prepareTick();
+		}
+		return n;
+	}
 
+	/**
+	 * Prepare the player information and the ghost strategy for the current tick,
+	 * unless this has already been done since the tick, the player, the walls or
+	 * the strategy last changed.
+	 */
+	private void prepareTick() {
+		if (preparedChanges != changes) {
+			tick.update(this);
+			preparedChanges = changes;
 		}
 	}
 
@@ -143,7 +1233,128 @@ public class Game {
 		} else if (y < 0 || y >= height) {
 			return AIR;
 		} else {
-			return board[position.getY()][position.getX()];
+			return getTile(y * width + x);
+		}
+	}
+
+	/**
+	 * Get the tile in a given cell of the board.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return Tile in given cell
+	 */
+	public Tile getTile(int cell) {
+		switch (board[cell]) {
+			case KIND_WALL:
+				return WALL;
+			case KIND_DOT:
+				return DOT;
+			case KIND_PILL:
+				return PILL;
+			case KIND_PLAYER:
+				return playerTile;
+			case KIND_GHOST:
+				int slot = slotOf(cell);
+				return new Ghost(DIRECTIONS[ghostDirections[slot]], ghostOnDot[slot]);
+			default:
+				return AIR;
+		}
+	}
+
+	/**
+	 * Check whether the tile in a given cell of the board is an obstruction.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return True if the tile obstructs movement.
+	 */
+	public boolean isObstruction(int cell) {
+		return OBSTRUCTION[board[cell]];
+	}
+
+	/**
+	 * Determine the cell reached after moving one step in a given direction from a
+	 * given cell. As for <code>Position.moveWithin()</code>, moving off one edge
+	 * of the board wraps around to the opposite edge.
+	 *
+	 * @param cell      Cell index to move from
+	 * @param direction Direction to move in
+	 * @return Cell index of new position
+	 */
+	public int neighbour(int cell, Direction direction) {
+		final int x = cell % width;
+		final int y = cell / width;
+		switch (direction) {
+			case UP:
+				return y == height - 1 ? x : cell + width;
+			case DOWN:
+				return y == 0 ? cell + (height - 1) * width : cell - width;
+			case RIGHT:
+				return x == width - 1 ? cell - x : cell + 1;
+			default:
+				return x == 0 ? cell + width - 1 : cell - 1;
+		}
+	}
+
+	/**
+	 * Get the open neighbours of a given cell. Bit <code>d</code> of the result is
+	 * set if the neighbour in the direction with ordinal <code>d</code> is not an
+	 * obstruction. This is maintained as the board changes, and so costs only an
+	 * array lookup.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return Mask of open neighbours.
+	 */
+	public int getOpenNeighbours(int cell) {
+		return open[cell];
+	}
+
+	/**
+	 * Update the open neighbours of each cell next to a given cell, after the
+	 * given cell has changed between being an obstruction or not.
+	 *
+	 * @param cell Cell index which has changed.
+	 */
+	private void wallChanged(int cell) {
+		changes = changes + 1;
+		for (int d = 0; d != DIRECTIONS.length; ++d) {
+			updateOpen(neighbour(cell, DIRECTIONS[d]));
+		}
+	}
+
+	/**
+	 * Recompute the open neighbours of a given cell.
+	 *
+	 * @param cell Cell index to update.
+	 */
+	private void updateOpen(int cell) {
+		int mask = 0;
+		for (int d = 0; d != DIRECTIONS.length; ++d) {
+			if (!isObstruction(neighbour(cell, DIRECTIONS[d]))) {
+				mask |= 1 << d;
+			}
+		}
+		open[cell] = (byte) mask;
+	}
+
+	/**
+	 * Determine the code used in the packed board for a given tile.
+	 *
+	 * @param tile Tile to determine code for
+	 * @return Kind of the tile
+	 */
+	private static byte kindOf(Tile tile) {
+		if (tile instanceof Wall) {
+			return KIND_WALL;
+		} else if (tile instanceof Dot) {
+			return KIND_DOT;
+		} else if (tile instanceof Pill) {
+			return KIND_PILL;
+		} else if (tile instanceof Player) {
+			return KIND_PLAYER;
+		} else if (tile instanceof Ghost) {
+			return KIND_GHOST;
+		} else {
+			return KIND_AIR;
 		}
 	}
 
@@ -153,20 +1364,7 @@ public class Game {
 	 * @return true if there are still dots on the board
 	 */
 	public boolean dotsExist() {
-		for (int i = 0; i != width; ++i) {
-			for (int j = 0; j != height; ++j) {
-				if (board[j][i] instanceof Dot) {
-					return true;
-				}
-				// check for a ghost being over a dot
-				if (board[j][i] instanceof Ghost) {
-					if (((Ghost) board[j][i]).isOnDot()) {
-						return true;
-					}
-				}
-			}
-		}
-		return false;
+		return dots > 0;
 	}
 
 	/**
@@ -177,14 +1375,41 @@ public class Game {
 	 * @param p1 Board position of second tile
 	 */
 	public void swapTile(Position p1, Position p2) {
-		final int x1 = p1.getX();
-		final int y1 = p1.getY();
-		final int x2 = p2.getX();
-		final int y2 = p2.getY();
+		swapTile(p1.getY() * width + p1.getX(), p2.getY() * width + p2.getX());
+	}
+
+	/**
+	 * Swap the tiles in two cells of the board.
+	 *
+	 * @param c1 Cell index of first tile
+	 * @param c2 Cell index of second tile
+	 */
+	public void swapTile(int c1, int c2) {
+		final byte k1 = board[c1];
+		final byte k2 = board[c2];
 		// Perform the swap
-		Tile tmp = board[y1][x1];
-		board[y1][x1] = board[y2][x2];
-		board[y2][x2] = tmp;
+		board[c1] = k2;
+		board[c2] = k1;
+		markDirty(c1);
+		markDirty(c2);
+		if (OBSTRUCTION[k1] != OBSTRUCTION[k2]) {
+			// Only happens when a ghost is completely enclosed by walls
+			wallChanged(c1);
+			wallChanged(c2);
+		}
+		// Update the entity index
+		if (k1 == KIND_GHOST && k2 == KIND_GHOST) {
+			swapGhosts(c1, c2);
+		} else if (k1 == KIND_GHOST) {
+			relocateGhost(c1, c2);
+		} else if (k2 == KIND_GHOST) {
+			relocateGhost(c2, c1);
+		}
+		if (k1 == KIND_PLAYER) {
+			movePlayer(c2);
+		} else if (k2 == KIND_PLAYER) {
+			movePlayer(c1);
+		}
 	}
 
 	/**
@@ -202,30 +1427,176 @@ public class Game {
 		} else if (y < 0 || y >= height) {
 			return;
 		} else {
-			board[position.getY()][position.getX()] = tile;
+			setTile(y * width + x, tile);
+		}
+	}
+
+	/**
+	 * Set the tile in a given cell of the board, whilst keeping the index of the
+	 * player and ghosts, and the count of remaining dots, up-to-date.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @param tile The tile to put in the given cell.
+	 */
+	public void setTile(int cell, Tile tile) {
+		switch (board[cell]) {
+			case KIND_DOT:
+				dots = dots - 1;
+				break;
+			case KIND_GHOST:
+				if (removeGhost(cell)) {
+					dots = dots - 1;
+				}
+				break;
+			case KIND_PLAYER:
+				movePlayer(-1);
+				playerTile = null;
+				break;
+		}
+		final byte kind = kindOf(tile);
+		final boolean wasObstruction = OBSTRUCTION[board[cell]];
+		board[cell] = kind;
+		markDirty(cell);
+		if (OBSTRUCTION[kind] != wasObstruction) {
+			wallChanged(cell);
+		}
+		switch (kind) {
+			case KIND_DOT:
+				dots = dots + 1;
+				break;
+			case KIND_GHOST:
+				Ghost ghost = (Ghost) tile;
+				if (ghost.isOnDot()) {
+					dots = dots + 1;
+				}
+				addGhost(cell, (byte) ghost.getDirection().ordinal(), ghost.isOnDot());
+				break;
+			case KIND_PLAYER:
+				movePlayer(cell);
+				playerTile = (Player) tile;
+				break;
 		}
 	}
 
+	/**
+	 * Record that a ghost now occupies a given cell.
+	 *
+	 * @param cell      Cell index of ghost.
+	 * @param direction Ordinal of the ghost's direction.
+	 * @param onDot     Whether the ghost is on a dot.
+	 */
+	private void addGhost(int cell, byte direction, boolean onDot) {
+		if (ghostCount == ghostCells.length) {
+			ghostCells = Arrays.copyOf(ghostCells, ghostCount * 2);
+			ghostDirections = Arrays.copyOf(ghostDirections, ghostCount * 2);
+			ghostOnDot = Arrays.copyOf(ghostOnDot, ghostCount * 2);
+		}
+		ghostCells[ghostCount] = cell;
+		ghostDirections[ghostCount] = direction;
+		ghostOnDot[ghostCount] = onDot;
+		slots(cell).put(cell, ghostCount);
+		ghostCount = ghostCount + 1;
+	}
+
+	/**
+	 * Record that a ghost no longer occupies a given cell.
+	 *
+	 * @param cell Cell index of ghost.
+	 * @return Whether the ghost which was removed was on a dot.
+	 */
+	private boolean removeGhost(int cell) {
+		int slot = slots(cell).remove(cell);
+		boolean onDot = ghostOnDot[slot];
+		ghostCount = ghostCount - 1;
+		// Fill the hole with the last ghost
+		if (slot != ghostCount) {
+			int last = ghostCells[ghostCount];
+			ghostCells[slot] = last;
+			ghostDirections[slot] = ghostDirections[ghostCount];
+			ghostOnDot[slot] = ghostOnDot[ghostCount];
+			slots(last).put(last, slot);
+		}
+		return onDot;
+	}
+
+	/**
+	 * Record that a ghost has moved from one cell to another (empty) cell.
+	 *
+	 * @param from Cell index the ghost has left.
+	 * @param to   Cell index the ghost now occupies.
+	 */
+	private void relocateGhost(int from, int to) {
+		int slot = slots(from).remove(from);
+		ghostCells[slot] = to;
+		slots(to).put(to, slot);
+	}
+
+	/**
+	 * Record that the ghosts in two cells have swapped places.
+	 *
+	 * @param c1 Cell index of first ghost.
+	 * @param c2 Cell index of second ghost.
+	 */
+	private void swapGhosts(int c1, int c2) {
+		int s1 = slotOf(c1);
+		int s2 = slotOf(c2);
+		ghostCells[s1] = c2;
+		ghostCells[s2] = c1;
+		slots(c1).put(c1, s2);
+		slots(c2).put(c2, s1);
+	}
+
+	/**
+	 * Get the slot of the ghost in a given cell.
+	 *
+	 * @param cell Cell index.
+	 * @return Slot of the ghost, or -1 if there is no ghost in the cell.
+	 */
+	private int slotOf(int cell) {
+		return slots(cell).get(cell);
+	}
+
+	/**
+	 * Get the stripe of <code>ghostSlots</code> which holds a given cell.
+	 *
+	 * @param cell Cell index.
+	 * @return Map for the cell's stripe.
+	 */
+	private CellMap slots(int cell) {
+		return ghostSlots[cell / stripeCells];
+	}
+
+	/**
+	 * Record that the player now occupies a given cell.
+	 *
+	 * @param cell Cell index of player, or -1 if the player has been removed.
+	 */
+	private void movePlayer(int cell) {
+		playerCell = cell;
+		player = null;
+		changes = changes + 1;
+	}
+
+	/**
+	 * Get the cell currently occupied by the player.
+	 *
+	 * @return Cell index of player, or -1 if the player is not on the board.
+	 */
+	public int getPlayerCell() {
+		return playerCell;
+	}
+
 	/**
 	 * Locate the current position of the player.
 	 *
-	 * @return Position of player tile on board
+	 * @return Position of player tile on board, or <code>null</code> if the
+	 *         player is not on the board.
 	 */
 	public Position locatePlayer() {
-		// Find all sections
-		for (int x = 0; x < width; ++x) {
-			for (int y = 0; y < height; ++y) {
-				Position p = new Position(x, y);
-				// Extract tile at x,y position
-				Tile t = getTile(p);
-				// Check if player
-				if (t instanceof Player) {
-					return p;
-				}
-			}
+		if (player == null && playerCell >= 0) {
+			player = new Position(playerCell % width, playerCell / width);
 		}
-		return null;
-		// throw new IllegalArgumentException("Player not located on the board!");
+		return player;
 	}
 
 	/**
@@ -234,39 +1605,88 @@ public class Game {
 	 */
 	@Override
 	public String toString() {
-		String r = "";
+		StringBuilder sb = new StringBuilder((width + 4) * (height + 1));
+		try {
+			render(sb);
+		} catch (IOException e) {
+			// A StringBuilder never throws an IOException
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write the human-readable view of the current game board (as returned by
+	 * <code>toString()</code>) to a given output. The board is written one row at
+	 * a time, and so takes time linear in the size of the board.
+	 *
+	 * @param out Output to write the board to.
+	 * @throws IOException If the output cannot be written to.
+	 */
+	public void render(Appendable out) throws IOException {
+		StringBuilder row = new StringBuilder(width + 3);
 		for (int i = height - 1; i >= 0; --i) {
-			r += (i % 10) + "|";
+			row.setLength(0);
+			row.append((char) ('0' + (i % 10))).append('|');
 			for (int j = 0; j != width; ++j) {
-				Tile p = board[i][j];
-				r += p.toString();
+				int cell = i * width + j;
+				if (board[cell] == KIND_GHOST) {
+					// Avoid creating a view of each ghost
+					row.append(GHOST_CHARS[ghostDirections[slotOf(cell)]]);
+				} else {
+					row.append(getTile(cell).toString());
+				}
 			}
-			r += "|\n";
+			row.append("|\n");
+			out.append(row);
 		}
-		r += "  ";
+		row.setLength(0);
+		row.append("  ");
 		// Do the X-Axis
 		for (int j = 0; j != width; ++j) {
-			r += (j % 10);
+			row.append((char) ('0' + (j % 10)));
+		}
+		out.append(row);
+	}
+
+	/**
+	 * Write the human-readable view of the current game board (as returned by
+	 * <code>toString()</code>) to a given writer, which is flushed afterwards.
+	 *
+	 * @param writer Writer to write the board to.
+	 * @throws IOException If the writer cannot be written to.
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		if (writer instanceof BufferedWriter) {
+			render(writer);
+		} else {
+			BufferedWriter out = new BufferedWriter(writer);
+			render(out);
+			out.flush();
 		}
-		return r;
+		writer.flush();
 	}
 
 	/**
 	 * Initialse the board from a given input board. This includes the placement of
-	 * all terrain and pieces.
+	 * all terrain and pieces. Each row of the board starts with a label ending in
+	 * <code>|</code>, and then holds exactly one tile for each column followed by
+	 * a closing <code>|</code> and a line break (either <code>\n</code> or
+	 * <code>\r\n</code>). Anything after the last row (e.g. the x-axis labels)
+	 * is ignored.
 	 *
 	 * @param boardString String representing board.
+	 * @throws IllegalArgumentException If the board is malformed. That is, if it
+	 *                                  has fewer rows than the height of the
+	 *                                  board, if a row is too short or too long,
+	 *                                  if anything other than a line break
+	 *                                  follows the closing <code>|</code> of a
+	 *                                  row, if it holds a character which is not
+	 *                                  a tile, or if it holds more than one
+	 *                                  player.
 	 */
 	public void initialiseBoard(String boardString) {
-		// You don't need to understand this!
-		String[] rows = boardString.split("\n");
-		for (int y = 0; y != height; ++y) {
-			String row = rows[y];
-			for (int x = 0; x != width; ++x) {
-				char c = row.charAt(x + 2);
-				board[height - (y + 1)][x] = createPieceFromChar(c);
-			}
-		}
+		BoardLoader.load(new StringReader(boardString), this);
 	}
 
 	/**
@@ -276,40 +1696,18 @@ public class Game {
 	 * @return Distance to player
 	 */
 	public double distanceToPlayer(Position p) {
-		Position pp = locatePlayer();
-		int deltaX = Math.abs(pp.getX() - p.getX());
-		int deltaY = Math.abs(pp.getY() - p.getY());
-		return Math.sqrt((deltaX * deltaX) + (deltaY * deltaY));
+		return distanceToPlayer(p.getY() * width + p.getX());
 	}
 
 	/**
-	 * Create a new tile from a given character in the ASCII representation of the
-	 * board.
-	 *
-	 * @param c
-	 * @return
-	 */
-	private Tile createPieceFromChar(char c) {
-		switch (c) {
-			case ' ':
-				return AIR; // blank space
-			case 'o':
-				return new Player();
-			case '*':
-				return new Pill();
-			case '.':
-				return new Dot();
-			case '#':
-				return new Wall();
-			case '^':
-				return new Ghost(Direction.UP);
-			case '>':
-				return new Ghost(Direction.RIGHT);
-			case '<':
-				return new Ghost(Direction.LEFT);
-			case 'v':
-				return new Ghost(Direction.DOWN);
-		}
-		throw new IllegalArgumentException("invalid character");
+	 * Calculate the distance from a given cell to the player's position.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return Distance to player
+	 */
+	public double distanceToPlayer(int cell) {
+		int deltaX = Math.abs(playerCell % width - cell % width);
+		int deltaY = Math.abs(playerCell / width - cell / width);
+		return Math.sqrt((deltaX * deltaX) + (deltaY * deltaY));
 	}
 }
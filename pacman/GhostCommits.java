@@ -0,0 +1,47 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Carries out the decisions for the ghosts in a range of regions during the
+ * second phase of a two-phase ghost update, by splitting the range in half
+ * until only one region is left. Each region only modifies its own cells and
+ * the ghosts in them, deferring any other move to the serial pass, so regions
+ * can be handled concurrently.
+ */
+final class GhostCommits extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final Game game;
+	private final GhostRegion[] regions;
+	private final int from;
+	private final int to;
+
+	/**
+	 * Construct a task for a given range of regions.
+	 *
+	 * @param game    The game being played.
+	 * @param regions The regions of the board.
+	 * @param from    Index of first region.
+	 * @param to      Index after last region.
+	 */
+	GhostCommits(Game game, GhostRegion[] regions, int from, int to) {
+		this.game = game;
+		this.regions = regions;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from == 1) {
+			game.commitRegion(regions[from]);
+		} else {
+			int mid = (from + to) >>> 1;
+			invokeAll(new GhostCommits(game, regions, from, mid), new GhostCommits(game, regions, mid, to));
+		}
+	}
+}
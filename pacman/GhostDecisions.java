@@ -0,0 +1,73 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import pacman.tiles.Ghost;
+
+/**
+ * Makes the decisions for the ghosts in a range of regions during the first
+ * phase of a two-phase ghost update, by splitting the range in half until only
+ * one region is left. Each region's ghosts are then sorted into the order in
+ * which they move, before each makes its decision. The game is only read, and
+ * each region writes to a distinct part of each array, so regions can be
+ * handled concurrently.
+ */
+final class GhostDecisions extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final Game game;
+	private final TickContext tick;
+	private final int[] cells;
+	private final byte[] directions;
+	private final int[] decisions;
+	private final GhostRegion[] regions;
+	private final int from;
+	private final int to;
+
+	/**
+	 * Construct a task for a given range of regions.
+	 *
+	 * @param game       The game being played.
+	 * @param tick       Information about the player for the current tick.
+	 * @param cells      Cell of each ghost, grouped by region.
+	 * @param directions Array to record the direction (ordinal) of each ghost in.
+	 * @param decisions  Array to record the decision of each ghost in.
+	 * @param regions    The regions of the board.
+	 * @param from       Index of first region.
+	 * @param to         Index after last region.
+	 */
+	GhostDecisions(Game game, TickContext tick, int[] cells, byte[] directions, int[] decisions,
+			GhostRegion[] regions, int from, int to) {
+		this.game = game;
+		this.tick = tick;
+		this.cells = cells;
+		this.directions = directions;
+		this.decisions = decisions;
+		this.regions = regions;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from == 1) {
+			final GhostRegion region = regions[from];
+			Arrays.sort(cells, region.from, region.to);
+			for (int i = region.from; i != region.to; ++i) {
+				int cell = cells[i];
+				int direction = game.getGhostDirection(cell);
+				directions[i] = (byte) direction;
+				decisions[i] = Ghost.decide(game, tick, cell, direction);
+				region.enclosed |= game.isObstruction(decisions[i] >>> 2);
+			}
+		} else {
+			int mid = (from + to) >>> 1;
+			invokeAll(new GhostDecisions(game, tick, cells, directions, decisions, regions, from, mid),
+					new GhostDecisions(game, tick, cells, directions, decisions, regions, mid, to));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.util.Arrays;
+
+import pacman.util.CellMap;
+
+/**
+ * A region of the board during a two-phase ghost update. This is a range of
+ * whole rows, along with the ghosts which started the tick in it, and records
+ * which of their moves must be deferred to the serial pass because they cross
+ * into another region or depend on a move which does.
+ */
+final class GhostRegion {
+	/**
+	 * Index in <code>tickGhosts</code> of the first ghost in this region, and of
+	 * the ghost after the last.
+	 */
+	int from;
+	int to;
+
+	/**
+	 * The first cell in this region, and the cell after the last.
+	 */
+	int lo;
+	int hi;
+
+	/**
+	 * Whether any ghost in this region is completely enclosed by walls, and so
+	 * will swap places with one of them.
+	 */
+	boolean enclosed;
+
+	/**
+	 * Cells in this region which a deferred move may read or write.
+	 */
+	private final CellMap taint = new CellMap();
+
+	/**
+	 * Index in <code>tickGhosts</code> of each ghost whose move is deferred, in
+	 * order. Only the first <code>deferredCount</code> entries are in use.
+	 */
+	int[] deferred = new int[16];
+	int deferredCount;
+
+	/**
+	 * Cells modified by the moves carried out within this region (possibly with
+	 * duplicates). Only the first <code>touchedCount</code> entries are in use.
+	 */
+	int[] touched = new int[16];
+	int touchedCount;
+
+	/**
+	 * Start a new tick.
+	 *
+	 * @param from Index of the first ghost.
+	 * @param to   Index after the last ghost.
+	 * @param lo   First cell.
+	 * @param hi   Cell after the last.
+	 */
+	void reset(int from, int to, int lo, int hi) {
+		this.from = from;
+		this.to = to;
+		this.lo = lo;
+		this.hi = hi;
+		this.enclosed = false;
+		if (taint.size() != 0) {
+			taint.clear();
+		}
+		deferredCount = 0;
+		touchedCount = 0;
+	}
+
+	/**
+	 * Check whether a given cell is in this region.
+	 *
+	 * @param cell Cell index.
+	 * @return True if the cell is in this region.
+	 */
+	boolean contains(int cell) {
+		return cell >= lo && cell < hi;
+	}
+
+	/**
+	 * Record that a deferred move may read or write a given cell. Cells outside
+	 * this region are ignored.
+	 *
+	 * @param cell Cell index.
+	 */
+	void taint(int cell) {
+		if (contains(cell)) {
+			taint.put(cell, 1);
+		}
+	}
+
+	/**
+	 * Check whether a deferred move may read or write a given cell.
+	 *
+	 * @param cell Cell index.
+	 * @return True if the cell has been tainted.
+	 */
+	boolean isTainted(int cell) {
+		return taint.size() != 0 && taint.get(cell) >= 0;
+	}
+
+	/**
+	 * Defer the move of a given ghost to the serial pass.
+	 *
+	 * @param index Index of the ghost in <code>tickGhosts</code>.
+	 */
+	void defer(int index) {
+		if (deferredCount == deferred.length) {
+			deferred = Arrays.copyOf(deferred, deferredCount * 2);
+		}
+		deferred[deferredCount++] = index;
+	}
+
+	/**
+	 * Record that a cell has been modified by a move within this region.
+	 *
+	 * @param cell Cell index.
+	 */
+	void touch(int cell) {
+		if (touchedCount == touched.length) {
+			touched = Arrays.copyOf(touched, touchedCount * 2);
+		}
+		touched[touchedCount++] = cell;
+	}
+}
@@ -0,0 +1,38 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+/**
+ * Determines where a ghost moves when it reaches a junction (i.e. where it has a
+ * choice of at least three options). Elsewhere, a ghost simply follows the
+ * corridor it is in. The strategy used by a game can be changed using
+ * <code>Game.setGhostStrategy()</code>.
+ */
+public interface GhostStrategy {
+	/**
+	 * Prepare for the ghost phase of a tick. This is called once per tick, before
+	 * any ghost decides where to move, and is where any information shared by all
+	 * ghosts should be computed. It is called again during a tick only if the
+	 * player or the walls change, and is not called at all when there are no
+	 * ghosts.
+	 *
+	 * @param game The game being played.
+	 * @param tick Information about the player for the current tick.
+	 */
+	public void prepare(Game game, TickContext tick);
+
+	/**
+	 * Choose where a ghost at a junction moves to. This must not modify any
+	 * state, since it may be called concurrently for different ghosts (see
+	 * <code>Game.moveGhosts(ForkJoinPool)</code>).
+	 *
+	 * @param game The game being played.
+	 * @param tick Information about the player for the current tick.
+	 * @param cell Cell index of the ghost.
+	 * @param open Open neighbours of the ghost's cell (as returned by
+	 *             <code>Game.getOpenNeighbours()</code>).
+	 * @return The cell index to move to, which must be an open neighbour.
+	 */
+	public int choose(Game game, TickContext tick, int cell, int open);
+}
@@ -0,0 +1,54 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import pacman.events.PlayerMove.Direction;
+
+/**
+ * The default strategy for ghosts, which is to move to whichever neighbour is
+ * closest (in a straight line) to the player or, if the ghosts are frightened,
+ * furthest away from the player. Since this has no state, a single instance is
+ * shared by all games.
+ */
+public final class GreedyStrategy implements GhostStrategy {
+	public static final GreedyStrategy GREEDY = new GreedyStrategy();
+
+	/**
+	 * The order in which directions are considered at a junction.
+	 */
+	private static final Direction[] ORDER = { Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT };
+
+	private GreedyStrategy() {
+	}
+
+	@Override
+	public void prepare(Game game, TickContext tick) {
+		// nothing to do
+	}
+
+	/**
+	 * Choose the first open neighbour (in the order up, left, down, right) which
+	 * is closest to the player or, if the ghost is frightened, furthest away from
+	 * the player.
+	 */
+	@Override
+	public int choose(Game game, TickContext tick, int cell, int open) {
+		boolean frightened = tick.isFrightened();
+		long target = frightened ? -1 : Long.MAX_VALUE;
+		int best = -1;
+
+		for (Direction d : ORDER) {
+			if ((open & (1 << d.ordinal())) != 0) {
+				int np = game.neighbour(cell, d);
+				long npDistance = tick.distanceSquared(np);
+				if (frightened ? npDistance > target : npDistance < target) {
+					target = npDistance;
+					best = np;
+				}
+			}
+		}
+
+		return best;
+	}
+}
@@ -0,0 +1,93 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import pacman.tiles.Player;
+
+/**
+ * Holds information about the player which ghosts need when deciding how to
+ * move. The player cannot move during the ghost phase of a tick, and so this is
+ * computed once per tick and then shared by every ghost.
+ */
+public final class TickContext {
+	/**
+	 * Width of the board, used to convert cell indices into coordinates.
+	 */
+	private int width;
+
+	/**
+	 * X-coordinate of the player.
+	 */
+	private int playerX;
+
+	/**
+	 * Y-coordinate of the player.
+	 */
+	private int playerY;
+
+	/**
+	 * Whether or not the player has an active powerup, in which case the ghosts
+	 * are frightened.
+	 */
+	private boolean frightened;
+
+	/**
+	 * The strategy used by ghosts at junctions.
+	 */
+	private GhostStrategy strategy = GreedyStrategy.GREEDY;
+
+	/**
+	 * Update this context from the current state of a given game, and prepare the
+	 * game's ghost strategy for the tick.
+	 *
+	 * @param game The game being played.
+	 */
+	public void update(Game game) {
+		final int cell = game.getPlayerCell();
+		this.width = game.getWidth();
+		if (cell >= 0) {
+			this.playerX = cell % width;
+			this.playerY = cell / width;
+			this.frightened = ((Player) game.getTile(cell)).powerUpActive();
+		} else {
+			this.playerX = -1;
+			this.playerY = -1;
+			this.frightened = false;
+		}
+		this.strategy = game.getGhostStrategy();
+		strategy.prepare(game, this);
+	}
+
+	/**
+	 * Get the strategy used by ghosts at junctions during this tick.
+	 *
+	 * @return The strategy.
+	 */
+	public GhostStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Check whether the ghosts are currently frightened of the player.
+	 *
+	 * @return True if the player has an active powerup.
+	 */
+	public boolean isFrightened() {
+		return frightened;
+	}
+
+	/**
+	 * Calculate the squared distance from a given cell to the player. This orders
+	 * cells in the same way as the actual (Euclidean) distance, but avoids
+	 * computing a square root.
+	 *
+	 * @param cell Cell index (i.e. <code>y * width + x</code>)
+	 * @return Squared distance to player
+	 */
+	public long distanceSquared(int cell) {
+		long deltaX = cell % width - playerX;
+		long deltaY = cell / width - playerY;
+		return (deltaX * deltaX) + (deltaY * deltaY);
+	}
+}
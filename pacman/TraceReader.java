@@ -0,0 +1,195 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import pacman.events.PlayerMove.Direction;
+import pacman.tiles.*;
+
+/**
+ * Reads a trace written by <code>TraceRecorder</code>, from which the board can
+ * be rebuilt after any recorded step. The trace is held in memory in its
+ * compact form, and the board after a given step is rebuilt by applying each
+ * frame up to that step in turn.
+ */
+public final class TraceReader {
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * The directions of movement, indexed by ordinal.
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final byte[] data;
+	private final int width;
+	private final int height;
+
+	/**
+	 * Offset of each frame in the trace.
+	 */
+	private final int[] frames;
+
+	private TraceReader(byte[] data) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		if (data.length < HEADER_SIZE || buffer.getInt(0) != TraceRecorder.MAGIC) {
+			throw new IOException("not a trace");
+		}
+		int version = buffer.getShort(4);
+		if (version != TraceRecorder.VERSION) {
+			throw new IOException("unsupported trace version " + version);
+		}
+		this.data = data;
+		this.width = buffer.getInt(8);
+		this.height = buffer.getInt(12);
+		if (width < 0 || height < 0) {
+			throw new IOException("corrupt trace header");
+		}
+		// Find the start of each frame
+		int[] frames = new int[16];
+		int count = 0;
+		int offset = HEADER_SIZE;
+		final int cells = width * height;
+		while (offset < data.length) {
+			if (count == frames.length) {
+				frames = Arrays.copyOf(frames, count * 2);
+			}
+			frames[count++] = offset;
+			int[] position = { offset };
+			int header = readVarInt(position);
+			if ((header & 1) != 0) {
+				readVarInt(position);
+			}
+			int cell = -1;
+			for (int i = 0; i != header >>> 1; ++i) {
+				cell = cell + readVarInt(position) + 1;
+				position[0] = position[0] + 1;
+			}
+			if (cell < -1 || cell >= cells || position[0] > data.length) {
+				throw new IOException("corrupt trace frame " + (count - 1));
+			}
+			offset = position[0];
+		}
+		if (count == 0) {
+			throw new IOException("trace has no frames");
+		}
+		this.frames = Arrays.copyOf(frames, count);
+	}
+
+	/**
+	 * Read a trace from a given stream.
+	 *
+	 * @param input Stream to read from.
+	 * @return The trace.
+	 * @throws IOException If the stream cannot be read, or does not hold a valid
+	 *                     trace.
+	 */
+	public static TraceReader read(InputStream input) throws IOException {
+		return new TraceReader(input.readAllBytes());
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return Board width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return Board height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get the number of steps recorded in the trace.
+	 *
+	 * @return Number of steps.
+	 */
+	public int getStepCount() {
+		return frames.length - 1;
+	}
+
+	/**
+	 * Rebuild the game as it was after a given number of recorded steps.
+	 *
+	 * @param step Number of steps, where 0 gives the state when recording
+	 *             started.
+	 * @return A game (without any events) holding the board at that point.
+	 */
+	public Game getGame(int step) {
+		if (step < 0 || step >= frames.length) {
+			throw new IndexOutOfBoundsException(step);
+		}
+		byte[] codes = new byte[width * height];
+		int powerupLeft = 0;
+		int[] position = { frames[0] };
+		for (int frame = 0; frame <= step; ++frame) {
+			int header = readVarInt(position);
+			if ((header & 1) != 0) {
+				powerupLeft = readVarInt(position);
+			}
+			int cell = -1;
+			for (int i = 0; i != header >>> 1; ++i) {
+				cell = cell + readVarInt(position) + 1;
+				codes[cell] = data[position[0]++];
+			}
+		}
+		Game game = new Game(width, height);
+		for (int cell = 0; cell != codes.length; ++cell) {
+			if (codes[cell] != 0) {
+				game.setTile(cell, decode(codes[cell], powerupLeft));
+			}
+		}
+		return game;
+	}
+
+	/**
+	 * Create the tile with a given code (see <code>Game.traceCode()</code>).
+	 */
+	private static Tile decode(byte code, int powerupLeft) {
+		switch (code & 7) {
+			case Game.KIND_WALL:
+				return Wall.WALL;
+			case Game.KIND_DOT:
+				return Dot.DOT;
+			case Game.KIND_PILL:
+				return Pill.PILL;
+			case Game.KIND_PLAYER:
+				return new Player(powerupLeft);
+			case Game.KIND_GHOST:
+				return new Ghost(DIRECTIONS[(code >> 3) & 3], (code & 32) != 0);
+			default:
+				return Air.AIR;
+		}
+	}
+
+	/**
+	 * Read a variable-length integer, advancing the given position past it.
+	 */
+	private int readVarInt(int[] position) {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (position[0] >= data.length) {
+				// Leave the position past the end, which is reported as corrupt
+				position[0] = data.length + 1;
+				return 0;
+			}
+			b = data[position[0]++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
@@ -0,0 +1,196 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Records a compact binary trace of a game, from which the board (including the
+ * state of the player and ghosts which is not visible) can be rebuilt after any
+ * step using <code>TraceReader</code>. Rather than recording the whole board
+ * after each step, only the cells which have changed are recorded, and so the
+ * size of a trace is proportional to the activity in the game rather than the
+ * size of the board. A trace is laid out as follows:
+ *
+ * <ul>
+ * <li><b>Header</b> (16 bytes). The magic number <code>PACT</code>, the format
+ * version (2 bytes), two reserved bytes, and the width and height of the board
+ * (4 bytes each, big-endian).</li>
+ * <li><b>Frames</b>. One for the state when recording started, and then one for
+ * each step. A frame starts with the number of changed cells, shifted left by
+ * one, with the low bit set if the player's remaining powerup changed. This is
+ * followed by the new remaining powerup (if it changed), and then each changed
+ * cell in ascending order as the gap from the previous changed cell, followed
+ * by a single byte giving its code (see <code>Game.traceCode()</code>). All
+ * numbers in a frame other than the codes are unsigned variable-length
+ * integers, with seven bits per byte and the high bit set on all but the last
+ * byte.</li>
+ * </ul>
+ */
+public final class TraceRecorder implements Closeable {
+	/**
+	 * The current version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The magic number at the start of every trace (i.e. "PACT").
+	 */
+	static final int MAGIC = 0x50414354;
+
+	private final DataOutputStream out;
+
+	/**
+	 * The code of each cell as last recorded, or <code>null</code> if recording
+	 * has not started.
+	 */
+	private byte[] recorded;
+
+	/**
+	 * The remaining powerup of the player as last recorded.
+	 */
+	private int powerupLeft;
+
+	/**
+	 * The cells which have been modified during the current step (possibly with
+	 * duplicates). Only the first <code>touchedCount</code> entries are in use.
+	 */
+	private int[] touched = new int[16];
+	private int touchedCount;
+
+	/**
+	 * Number of frames recorded.
+	 */
+	private int frames;
+
+	/**
+	 * Construct a recorder which writes a trace to a given stream. The recorder
+	 * must then be attached to a game using <code>Game.setTraceRecorder()</code>.
+	 *
+	 * @param out Stream to write to.
+	 */
+	public TraceRecorder(OutputStream out) {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+	}
+
+	/**
+	 * Get the number of steps recorded so far.
+	 *
+	 * @return Number of steps.
+	 */
+	public int getStepCount() {
+		return Math.max(0, frames - 1);
+	}
+
+	/**
+	 * Start recording a given game, by writing the header and a frame holding its
+	 * current state.
+	 *
+	 * @param game The game being recorded.
+	 */
+	void start(Game game) {
+		if (recorded != null) {
+			throw new IllegalStateException("recorder is already in use");
+		}
+		final int cells = game.getWidth() * game.getHeight();
+		recorded = new byte[cells];
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeShort(0);
+			out.writeInt(game.getWidth());
+			out.writeInt(game.getHeight());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (int cell = 0; cell != cells; ++cell) {
+			touch(cell);
+		}
+		endTick(game);
+	}
+
+	/**
+	 * Record that a cell has been modified during the current step.
+	 *
+	 * @param cell Cell index which was modified.
+	 */
+	void touch(int cell) {
+		if (touchedCount == touched.length) {
+			touched = Arrays.copyOf(touched, touchedCount * 2);
+		}
+		touched[touchedCount++] = cell;
+	}
+
+	/**
+	 * Write a frame holding the cells whose codes differ from those last
+	 * recorded. A cell which was modified but ended up as it was (e.g. an empty
+	 * cell which a ghost passed through) is therefore not recorded.
+	 *
+	 * @param game The game being recorded.
+	 */
+	void endTick(Game game) {
+		// Determine the distinct cells which have changed
+		Arrays.sort(touched, 0, touchedCount);
+		int count = 0;
+		for (int i = 0; i != touchedCount; ++i) {
+			int cell = touched[i];
+			if (count > 0 && touched[count - 1] == cell) {
+				continue;
+			}
+			if (recorded[cell] != (byte) game.traceCode(cell)) {
+				touched[count++] = cell;
+			}
+		}
+		touchedCount = 0;
+		int powerup = game.getPowerupLeft();
+		boolean powerupChanged = frames == 0 || powerup != powerupLeft;
+		try {
+			writeVarInt(count << 1 | (powerupChanged ? 1 : 0));
+			if (powerupChanged) {
+				writeVarInt(powerup);
+				powerupLeft = powerup;
+			}
+			int previous = -1;
+			for (int i = 0; i != count; ++i) {
+				int cell = touched[i];
+				byte code = (byte) game.traceCode(cell);
+				writeVarInt(cell - previous - 1);
+				out.writeByte(code);
+				recorded[cell] = code;
+				previous = cell;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		frames = frames + 1;
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Write out any buffered frames.
+	 *
+	 * @throws IOException If the stream cannot be written.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,223 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.batch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.io.GameError;
+import pacman.io.Parser;
+
+/**
+ * Validates many games in parallel using a work-stealing pool. Each job is
+ * replayed on its own <code>Game</code> instance. Distinct games share no
+ * mutable state (the only shared objects are the stateless tile singletons,
+ * such as <code>Air.AIR</code>, and the immutable event objects), and so jobs
+ * can safely run concurrently.
+ */
+public class BatchValidator implements AutoCloseable {
+	/**
+	 * The pool on which jobs are run.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Maximum number of jobs which are queued or running at any one time when
+	 * streaming jobs, which bounds the memory used.
+	 */
+	private final int window;
+
+	/**
+	 * Maximum number of distinct boards for which templates are cached.
+	 */
+	private static final int MAX_TEMPLATES = 1024;
+
+	/**
+	 * Cache of precompiled templates, keyed by the textual board. Most jobs are
+	 * played on one of a small number of boards, and so this avoids parsing the
+	 * same board over and over again.
+	 */
+	private final ConcurrentHashMap<String, BoardTemplate> templates = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct a validator which uses all available cores.
+	 */
+	public BatchValidator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a validator which uses a given number of threads.
+	 *
+	 * @param parallelism Number of threads to use.
+	 */
+	public BatchValidator(int parallelism) {
+		this.pool = new ForkJoinPool(parallelism);
+		this.window = parallelism * 4;
+	}
+
+	/**
+	 * Validate a list of jobs, returning the verdicts in the same order as the
+	 * jobs.
+	 *
+	 * @param jobs Jobs to validate.
+	 * @return Verdict for each job.
+	 */
+	public List<Verdict> validateAll(List<Job> jobs) {
+		ArrayList<Callable<Verdict>> tasks = new ArrayList<>(jobs.size());
+		for (int i = 0; i != jobs.size(); ++i) {
+			final int index = i;
+			final Job job = jobs.get(i);
+			tasks.add(() -> check(index, job));
+		}
+		ArrayList<Verdict> verdicts = new ArrayList<>(jobs.size());
+		for (Future<Verdict> f : pool.invokeAll(tasks)) {
+			try {
+				verdicts.add(f.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return verdicts;
+	}
+
+	/**
+	 * Validate a stream of jobs, passing each verdict to a given sink as soon as
+	 * it is available. Verdicts may therefore arrive out of order, but each
+	 * records the index of its job. Only a bounded number of jobs are in flight at
+	 * once, and so the stream can be arbitrarily long. The sink is never called
+	 * concurrently, and this method returns once every verdict has been passed to
+	 * it. If the sink throws an exception, this is rethrown once all jobs have
+	 * finished.
+	 *
+	 * @param jobs Jobs to validate.
+	 * @param sink Consumer of verdicts.
+	 */
+	public void validate(Iterator<Job> jobs, Consumer<Verdict> sink) {
+		final Semaphore inFlight = new Semaphore(window);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		int index = 0;
+		try {
+			while (jobs.hasNext()) {
+				final Job job = jobs.next();
+				final int i = index++;
+				inFlight.acquire();
+				pool.execute(() -> {
+					try {
+						Verdict v = check(i, job);
+						synchronized (sink) {
+							sink.accept(v);
+						}
+					} catch (RuntimeException | Error e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+			// Wait for all jobs to complete
+			inFlight.acquire(window);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		Throwable t = failure.get();
+		if (t instanceof Error) {
+			throw (Error) t;
+		} else if (t != null) {
+			throw (RuntimeException) t;
+		}
+	}
+
+	/**
+	 * Validate a single job using a cached template for its board.
+	 *
+	 * @param index Index of the job.
+	 * @param job   The job to validate.
+	 * @return Verdict for the job.
+	 */
+	private Verdict check(int index, Job job) {
+		BoardTemplate template;
+		try {
+			template = templates.get(job.getBoard());
+			if (template == null || template.getWidth() != job.getWidth()
+					|| template.getHeight() != job.getHeight()) {
+				template = BoardTemplate.parse(job.getBoard(), job.getWidth(), job.getHeight());
+				if (templates.size() < MAX_TEMPLATES) {
+					templates.put(job.getBoard(), template);
+				}
+			}
+		} catch (RuntimeException e) {
+			return new Verdict(index, false, "unexpected error: " + e);
+		}
+		return validate(index, job, template);
+	}
+
+	/**
+	 * Validate a single job on the current thread.
+	 *
+	 * @param index Index of the job.
+	 * @param job   The job to validate.
+	 * @return Verdict for the job.
+	 */
+	public static Verdict validate(int index, Job job) {
+		BoardTemplate template;
+		try {
+			template = BoardTemplate.parse(job.getBoard(), job.getWidth(), job.getHeight());
+		} catch (RuntimeException e) {
+			return new Verdict(index, false, "unexpected error: " + e);
+		}
+		return validate(index, job, template);
+	}
+
+	/**
+	 * Validate a single job on the current thread, starting from a given board.
+	 *
+	 * @param index    Index of the job.
+	 * @param job      The job to validate.
+	 * @param template Starting board of the job.
+	 * @return Verdict for the job.
+	 */
+	private static Verdict validate(int index, Job job, BoardTemplate template) {
+		final String expected = job.getExpectedBoard();
+		String actual;
+		try {
+			Game game = template.newGame();
+			game.run(new Parser(job.getSequence()).parseEvents());
+			actual = game.toString();
+		} catch (GameError e) {
+			if (expected == null) {
+				return new Verdict(index, true, null);
+			}
+			return new Verdict(index, false, "invalid game: " + e.getMessage());
+		} catch (RuntimeException e) {
+			return new Verdict(index, false, "unexpected error: " + e);
+		}
+		if (expected == null) {
+			return new Verdict(index, false, "expected game to be invalid");
+		} else if (!expected.equals(actual)) {
+			return new Verdict(index, false, "final board differs from expected");
+		}
+		return new Verdict(index, true, null);
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,82 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.batch;
+
+/**
+ * Represents a single game to be validated: a starting board, a sequence of
+ * moves and the expected outcome of replaying the sequence on the board.
+ */
+public final class Job {
+	private final String board;
+	private final int width;
+	private final int height;
+	private final String sequence;
+	private final String expectedBoard;
+
+	/**
+	 * Construct a new job.
+	 *
+	 * @param board         Starting board in the textual format accepted by
+	 *                      <code>Game.initialiseBoard()</code>.
+	 * @param width         Width of the board (in cells)
+	 * @param height        Height of the board (in cells)
+	 * @param sequence      The sequence of moves to replay.
+	 * @param expectedBoard The expected final board (as produced by
+	 *                      <code>Game.toString()</code>), or <code>null</code> if
+	 *                      the sequence is expected to be invalid.
+	 */
+	public Job(String board, int width, int height, String sequence, String expectedBoard) {
+		this.board = board;
+		this.width = width;
+		this.height = height;
+		this.sequence = sequence;
+		this.expectedBoard = expectedBoard;
+	}
+
+	/**
+	 * Get the starting board.
+	 *
+	 * @return Starting board in textual format.
+	 */
+	public String getBoard() {
+		return board;
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return Board width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return Board height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get the sequence of moves to replay.
+	 *
+	 * @return The sequence of moves.
+	 */
+	public String getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Get the expected final board.
+	 *
+	 * @return The expected final board, or <code>null</code> if the sequence is
+	 *         expected to be invalid.
+	 */
+	public String getExpectedBoard() {
+		return expectedBoard;
+	}
+}
@@ -0,0 +1,60 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.batch;
+
+/**
+ * The result of validating a single job.
+ */
+public final class Verdict {
+	private final int index;
+	private final boolean passed;
+	private final String message;
+
+	/**
+	 * Construct a new verdict.
+	 *
+	 * @param index   Index of the job in the input.
+	 * @param passed  Whether the outcome of the game matched the expected outcome.
+	 * @param message Description of why the job failed, or <code>null</code> if
+	 *                it passed.
+	 */
+	public Verdict(int index, boolean passed, String message) {
+		this.index = index;
+		this.passed = passed;
+		this.message = message;
+	}
+
+	/**
+	 * Get the index of the job (in the order the jobs were supplied) which this is
+	 * the verdict for.
+	 *
+	 * @return Index of the job.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Check whether the outcome of the game matched the expected outcome.
+	 *
+	 * @return True if the job passed.
+	 */
+	public boolean passed() {
+		return passed;
+	}
+
+	/**
+	 * Get a description of why the job failed.
+	 *
+	 * @return The description, or <code>null</code> if the job passed.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + index + (passed ? " passed" : " failed: " + message);
+	}
+}
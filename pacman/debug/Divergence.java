@@ -0,0 +1,93 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.debug;
+
+/**
+ * Describes the first event at which a replay diverged from its reference.
+ */
+public final class Divergence {
+	private final int event;
+	private final int lastAgreed;
+	private final String before;
+	private final String after;
+	private final String reason;
+
+	/**
+	 * Construct a new divergence.
+	 *
+	 * @param event      Index of the diverging event in the sequence.
+	 * @param lastAgreed Latest tick at which the replay was known to agree with
+	 *                   the reference.
+	 * @param before     Board before the event was applied.
+	 * @param after      Board after the event was applied.
+	 * @param reason     Why the event was invalid, or <code>null</code> if it was
+	 *                   applied but produced the wrong state.
+	 */
+	public Divergence(int event, int lastAgreed, String before, String after, String reason) {
+		this.event = event;
+		this.lastAgreed = lastAgreed;
+		this.before = before;
+		this.after = after;
+		this.reason = reason;
+	}
+
+	/**
+	 * Get the index (in the sequence) of the first event after which the replay
+	 * was found to disagree with the reference. If the reference does not cover
+	 * every tick, the actual divergence may have happened at any event after
+	 * <code>getLastAgreed()</code>.
+	 *
+	 * @return Index of the event.
+	 */
+	public int getEvent() {
+		return event;
+	}
+
+	/**
+	 * Get the latest tick (i.e. number of events applied) at which the replay was
+	 * known to agree with the reference.
+	 *
+	 * @return The tick.
+	 */
+	public int getLastAgreed() {
+		return lastAgreed;
+	}
+
+	/**
+	 * Get the board before the diverging event was applied.
+	 *
+	 * @return The board.
+	 */
+	public String getBefore() {
+		return before;
+	}
+
+	/**
+	 * Get the board after the diverging event was applied.
+	 *
+	 * @return The board.
+	 */
+	public String getAfter() {
+		return after;
+	}
+
+	/**
+	 * Get the reason why the diverging event broke the rules.
+	 *
+	 * @return The reason, or <code>null</code> if the event was valid but led to
+	 *         the wrong state.
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	@Override
+	public String toString() {
+		String r = "diverged at event " + event + " (last agreed at tick " + lastAgreed + ")";
+		if (reason != null) {
+			r += ": " + reason;
+		}
+		return r + "\nBEFORE:\n" + before + "\nAFTER:\n" + after;
+	}
+}
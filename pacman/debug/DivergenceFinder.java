@@ -0,0 +1,127 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.debug;
+
+import java.util.List;
+
+import pacman.BoardTemplate;
+import pacman.Checkpoint;
+import pacman.Game;
+import pacman.Game.Outcome;
+import pacman.events.EventBuffer;
+
+/**
+ * Locates the first event at which a replay of a game diverges from a
+ * reference. The sequence is replayed once whilst recording periodic
+ * checkpoints, after which a binary search is made over the ticks known to the
+ * oracle. Each probe of the search restores the nearest earlier checkpoint and
+ * replays at most <code>interval</code> events, rather than replaying the game
+ * from the start. This assumes that, once a replay has diverged from the
+ * reference, it never agrees with it again.
+ */
+public class DivergenceFinder {
+	/**
+	 * Number of checkpoints between keyframes.
+	 */
+	private static final int KEYFRAME_INTERVAL = 16;
+
+	private final BoardTemplate template;
+	private final EventBuffer events;
+	private final int interval;
+
+	/**
+	 * Construct a new finder for a given starting board and sequence of events.
+	 *
+	 * @param template The starting board.
+	 * @param events   The sequence of events.
+	 * @param interval Number of events between checkpoints.
+	 */
+	public DivergenceFinder(BoardTemplate template, EventBuffer events, int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("invalid checkpoint interval");
+		}
+		this.template = template;
+		this.events = events;
+		this.interval = interval;
+	}
+
+	/**
+	 * Find the first event at which a replay diverges from a given oracle.
+	 *
+	 * @param oracle The reference states.
+	 * @return The divergence, or <code>null</code> if the replay agrees with the
+	 *         oracle at every tick it knows and every event is valid.
+	 * @throws IllegalArgumentException If the oracle disagrees with the starting
+	 *                                  board.
+	 */
+	public Divergence find(Oracle oracle) {
+		// First, replay the sequence once (up to any invalid event) recording
+		// checkpoints along the way.
+		Game game = template.newGame();
+		game.setCheckpointPolicy(interval, KEYFRAME_INTERVAL);
+		final int n = events.size();
+		int end = 0;
+		while (end < n && game.step(events.get(end)) != Outcome.INVALID) {
+			end = end + 1;
+		}
+		String reason = end < n ? game.getInvalidReason() : null;
+		List<Checkpoint> checkpoints = game.getCheckpoints();
+		// Second, determine the ticks which the oracle can check
+		int[] ticks = new int[end + 1];
+		int count = 0;
+		for (int tick = 0; tick <= end; ++tick) {
+			if (oracle.hasReference(tick)) {
+				ticks[count++] = tick;
+			}
+		}
+		// Third, search for the first tick which disagrees. Here, all ticks before
+		// lo are known to agree, and all ticks from hi onwards to disagree.
+		Game probe = template.newGame();
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			replay(probe, checkpoints, ticks[mid]);
+			if (oracle.agrees(ticks[mid], probe)) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		int lastAgreed = hi > 0 ? ticks[hi - 1] : 0;
+		if (hi == count) {
+			if (reason == null) {
+				return null;
+			}
+			// Every checked tick agrees, but the replay stopped at an invalid event
+			replay(probe, checkpoints, end);
+			String board = probe.toString();
+			return new Divergence(end, lastAgreed, board, board, reason);
+		}
+		int tick = ticks[hi];
+		if (tick == 0) {
+			throw new IllegalArgumentException("reference disagrees with starting board");
+		}
+		// Finally, show the effect of the diverging event
+		replay(probe, checkpoints, tick - 1);
+		String before = probe.toString();
+		probe.step(events.get(tick - 1));
+		return new Divergence(tick - 1, lastAgreed, before, probe.toString(), null);
+	}
+
+	/**
+	 * Put a game into the state reached after a given number of events, by
+	 * restoring the latest checkpoint at or before that tick and replaying the
+	 * remaining events.
+	 *
+	 * @param game        Game to update.
+	 * @param checkpoints Checkpoints recorded every <code>interval</code> events.
+	 * @param tick        Number of events to have applied.
+	 */
+	private void replay(Game game, List<Checkpoint> checkpoints, int tick) {
+		Checkpoint cp = checkpoints.get(tick / interval);
+		game.restore(cp);
+		game.run(events, cp.getTick(), tick);
+	}
+}
@@ -0,0 +1,32 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.debug;
+
+import pacman.Game;
+
+/**
+ * A source of reference states for a game, against which a replay can be
+ * checked. An oracle need not know the state after every event, but may only
+ * know it at some ticks (e.g. at the end of the game).
+ */
+public interface Oracle {
+	/**
+	 * Check whether this oracle knows the expected state after a given number of
+	 * events.
+	 *
+	 * @param tick Number of events applied.
+	 * @return True if there is a reference state for this tick.
+	 */
+	public boolean hasReference(int tick);
+
+	/**
+	 * Check whether the state of a game agrees with the reference state for a
+	 * given tick. This is only called for ticks which have a reference state.
+	 *
+	 * @param tick Number of events applied.
+	 * @param game Game in the state reached after <code>tick</code> events.
+	 * @return True if the game is in the expected state.
+	 */
+	public boolean agrees(int tick, Game game);
+}
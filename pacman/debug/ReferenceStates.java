@@ -0,0 +1,55 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.debug;
+
+import java.util.HashMap;
+
+import pacman.Game;
+
+/**
+ * An oracle made up of expected states at given ticks, where each state is
+ * either a board (as returned by <code>Game.toString()</code>) or a hash (as
+ * returned by <code>Game.stateHash()</code>). A board only constrains the
+ * visible state, whilst a hash also constrains the hidden state of the player
+ * and ghosts.
+ */
+public class ReferenceStates implements Oracle {
+	private final HashMap<Integer, String> boards = new HashMap<>();
+	private final HashMap<Integer, Long> hashes = new HashMap<>();
+
+	/**
+	 * Record the expected board after a given number of events.
+	 *
+	 * @param tick  Number of events applied.
+	 * @param board Expected board.
+	 */
+	public void addBoard(int tick, String board) {
+		boards.put(tick, board);
+	}
+
+	/**
+	 * Record the expected state hash after a given number of events.
+	 *
+	 * @param tick Number of events applied.
+	 * @param hash Expected hash.
+	 */
+	public void addHash(int tick, long hash) {
+		hashes.put(tick, hash);
+	}
+
+	@Override
+	public boolean hasReference(int tick) {
+		return boards.containsKey(tick) || hashes.containsKey(tick);
+	}
+
+	@Override
+	public boolean agrees(int tick, Game game) {
+		Long hash = hashes.get(tick);
+		if (hash != null && hash != game.stateHash()) {
+			return false;
+		}
+		String board = boards.get(tick);
+		return board == null || board.equals(game.toString());
+	}
+}
@@ -0,0 +1,234 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.events;
+
+import java.util.Arrays;
+
+import pacman.events.PlayerMove.Direction;
+
+/**
+ * A compact sequence of events, where each event is encoded as a single byte.
+ * Player moves are encoded by the ordinal of their direction, whilst game over
+ * events have their own codes. This avoids creating an object for every event
+ * in a long sequence.
+ *
+ * Repetitive sequences (e.g. those produced by bots) can be held as runs of the
+ * same event, where a run of any length takes the same space as a single event.
+ * Runs are expanded only as they are applied (e.g. by
+ * <code>Game.run(EventBuffer)</code>).
+ */
+public final class EventBuffer {
+	/**
+	 * Code for a game over event where the player has won.
+	 */
+	public static final byte WON = 4;
+
+	/**
+	 * Code for a game over event where the player has lost.
+	 */
+	public static final byte LOST = 5;
+
+	/**
+	 * The directions of movement, indexed by their code.
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Shared event objects for each code, used when an event object is required.
+	 * Events are immutable, so these can be shared freely.
+	 */
+	private static final Event[] EVENTS = { new PlayerMove(Direction.UP), new PlayerMove(Direction.DOWN),
+			new PlayerMove(Direction.LEFT), new PlayerMove(Direction.RIGHT), new GameOver(true),
+			new GameOver(false) };
+
+	/**
+	 * The code of each run of events, of which only the first <code>runs</code>
+	 * are used.
+	 */
+	private byte[] codes;
+
+	/**
+	 * The number of events up to and including each run, or <code>null</code> if
+	 * every run has a single event (i.e. each run is just an event).
+	 */
+	private int[] ends;
+
+	/**
+	 * Number of runs in this buffer.
+	 */
+	private int runs;
+
+	/**
+	 * Number of events in this buffer.
+	 */
+	private int size;
+
+	/**
+	 * Construct an empty buffer.
+	 */
+	public EventBuffer() {
+		this.codes = new byte[16];
+	}
+
+	/**
+	 * Append an encoded event to this buffer.
+	 *
+	 * @param code Code of the event.
+	 */
+	public void append(byte code) {
+		if (ends == null) {
+			if (runs == codes.length) {
+				codes = Arrays.copyOf(codes, runs * 2);
+			}
+			codes[runs++] = code;
+			size = size + 1;
+		} else {
+			append(code, 1);
+		}
+	}
+
+	/**
+	 * Append a run of the same encoded event to this buffer. This takes the same
+	 * space regardless of the length of the run.
+	 *
+	 * @param code  Code of the event.
+	 * @param count Number of times the event is repeated.
+	 */
+	public void append(byte code, int count) {
+		if (count < 1 || size + count < 0) {
+			throw new IllegalArgumentException("invalid run length");
+		} else if (ends == null) {
+			if (count == 1) {
+				append(code);
+				return;
+			}
+			// Switch to holding the end of each run
+			ends = new int[codes.length];
+			for (int i = 0; i != runs; ++i) {
+				ends[i] = i + 1;
+			}
+		}
+		size = size + count;
+		if (runs > 0 && codes[runs - 1] == code) {
+			// Extend the previous run
+			ends[runs - 1] = size;
+			return;
+		}
+		if (runs == codes.length) {
+			codes = Arrays.copyOf(codes, runs * 2);
+			ends = Arrays.copyOf(ends, runs * 2);
+		}
+		codes[runs] = code;
+		ends[runs] = size;
+		runs = runs + 1;
+	}
+
+	/**
+	 * Get the number of events in this buffer.
+	 *
+	 * @return Number of events.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the code of the event at a given index in this buffer.
+	 *
+	 * @param index Index of the event.
+	 * @return Code of the event.
+	 */
+	public byte get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return codes[runOf(index)];
+	}
+
+	/**
+	 * Get the number of runs in this buffer. This is the same as the number of
+	 * events, unless runs of more than one event have been appended.
+	 *
+	 * @return Number of runs.
+	 */
+	public int runCount() {
+		return runs;
+	}
+
+	/**
+	 * Get the index of the run holding the event at a given index, using a binary
+	 * search of the runs.
+	 *
+	 * @param index Index of the event.
+	 * @return Index of the run.
+	 */
+	public int runOf(int index) {
+		if (ends == null) {
+			return index;
+		}
+		int lo = 0;
+		int hi = runs - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] <= index) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Get the index after the last event in a given run.
+	 *
+	 * @param run Index of the run.
+	 * @return Number of events up to and including the run.
+	 */
+	public int runEnd(int run) {
+		return ends == null ? run + 1 : ends[run];
+	}
+
+	/**
+	 * Get the array holding the code of each run. Only the first
+	 * <code>runCount()</code> entries are valid, and the array must not be
+	 * modified.
+	 *
+	 * @return The encoded runs.
+	 */
+	public byte[] codes() {
+		return codes;
+	}
+
+	/**
+	 * Check whether a given code represents a player move.
+	 *
+	 * @param code Code of an event.
+	 * @return True if the code is for a player move.
+	 */
+	public static boolean isMove(byte code) {
+		return code < WON;
+	}
+
+	/**
+	 * Get the direction of a player move from its code.
+	 *
+	 * @param code Code of a player move.
+	 * @return Direction of the move.
+	 */
+	public static Direction direction(byte code) {
+		return DIRECTIONS[code];
+	}
+
+	/**
+	 * Get an event object corresponding to a given code. The same object is
+	 * returned each time for a given code.
+	 *
+	 * @param code Code of an event.
+	 * @return The event.
+	 */
+	public static Event toEvent(byte code) {
+		return EVENTS[code];
+	}
+}
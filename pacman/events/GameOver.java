@@ -24,6 +24,15 @@ public class GameOver implements Event {
         this.won = won;
     }
 
+    /**
+     * Check whether this event claims that the game was won or lost.
+     *
+     * @return True if the game is claimed to be won.
+     */
+    public boolean isWon() {
+        return won;
+    }
+
     @Override
     public void apply(Game game) {
         if (won && !game.dotsExist()) {
@@ -5,7 +5,6 @@ package pacman.events;
 
 import pacman.Game;
 import pacman.tiles.*;
-import pacman.util.Position;
 import pacman.io.GameError;
 
 /**
@@ -43,10 +42,19 @@ public class PlayerMove implements Event {
 		this.direction = direction;
 	}
 
+	/**
+	 * Get the direction in which the player moves.
+	 *
+	 * @return Direction of this move.
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+
 	@Override
 	public void apply(Game game) {
 		// Find player's position on the board.
-		Position pp = game.locatePlayer();
+		int pp = game.getPlayerCell();
 		// Get player object
 		Player player = (Player) game.getTile(pp);
 		// Move player in this direction
@@ -0,0 +1,169 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import pacman.Game;
+import pacman.events.PlayerMove.Direction;
+import pacman.tiles.*;
+
+/**
+ * Responsible for loading a board in the textual format produced by
+ * <code>Game.toString()</code> into a game. The board is read one character at
+ * a time, and each tile is placed as soon as it is read, so the only memory
+ * needed is that of the board itself. Each row starts with a label of any
+ * length (e.g. <code>12|</code>) and ends with <code>|</code>, and rows may be
+ * separated by either <code>\n</code> or <code>\r\n</code>. The dimensions of
+ * the board are checked as it is read, as is that there is at most one player,
+ * and anything after the last row (e.g. the x-axis labels) is ignored.
+ */
+public final class BoardLoader {
+	/**
+	 * Number of characters read from a reader at a time.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * The tile represented by each character, or <code>null</code> if the
+	 * character does not represent a tile. Tiles are immutable, apart from the
+	 * player, which is created afresh for each board.
+	 */
+	private static final Tile[] TILES = new Tile[256];
+
+	static {
+		TILES[' '] = Air.AIR;
+		TILES['*'] = Pill.PILL;
+		TILES['.'] = Dot.DOT;
+		TILES['#'] = Wall.WALL;
+		TILES['^'] = new Ghost(Direction.UP);
+		TILES['>'] = new Ghost(Direction.RIGHT);
+		TILES['<'] = new Ghost(Direction.LEFT);
+		TILES['v'] = new Ghost(Direction.DOWN);
+	}
+
+	/**
+	 * A source of characters.
+	 */
+	private static abstract class Source {
+		/**
+		 * Read the next character.
+		 *
+		 * @return The character, or -1 if the end of the input has been reached.
+		 */
+		abstract int read();
+	}
+
+	private BoardLoader() {
+	}
+
+	/**
+	 * Load a board read from a given reader into a game, whose dimensions the
+	 * board must match.
+	 *
+	 * @param input The board to load.
+	 * @param game  The game to load it into.
+	 * @throws IllegalArgumentException If the board is malformed.
+	 */
+	public static void load(Reader input, Game game) {
+		load(new Source() {
+			private final char[] buffer = new char[CHUNK_SIZE];
+			private int index;
+			private int limit;
+
+			@Override
+			int read() {
+				if (index == limit) {
+					try {
+						int n;
+						do {
+							n = input.read(buffer, 0, buffer.length);
+						} while (n == 0);
+						if (n < 0) {
+							return -1;
+						}
+						index = 0;
+						limit = n;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return buffer[index++];
+			}
+		}, game);
+	}
+
+	/**
+	 * Load a board held as ASCII text in a given buffer (e.g. a memory-mapped
+	 * file) into a game, whose dimensions the board must match. The board is read
+	 * from the current position of the buffer, which is then left after the last
+	 * row.
+	 *
+	 * @param input The board to load.
+	 * @param game  The game to load it into.
+	 * @throws IllegalArgumentException If the board is malformed.
+	 */
+	public static void load(ByteBuffer input, Game game) {
+		load(new Source() {
+			@Override
+			int read() {
+				return input.hasRemaining() ? input.get() & 0xFF : -1;
+			}
+		}, game);
+	}
+
+	private static void load(Source input, Game game) {
+		final int width = game.getWidth();
+		final int height = game.getHeight();
+		boolean player = false;
+		for (int row = 0; row != height; ++row) {
+			final int y = height - (row + 1);
+			// Skip the label
+			int c;
+			do {
+				c = input.read();
+				if (c < 0) {
+					throw new IllegalArgumentException("board has " + row + " rows, expected " + height);
+				} else if (c == '\n') {
+					throw new IllegalArgumentException("row " + row + " of board has no '|'");
+				}
+			} while (c != '|');
+			// Read the tiles
+			for (int x = 0; x != width; ++x) {
+				c = input.read();
+				if (c < 0 || c == '\r' || c == '\n' || c == '|') {
+					throw new IllegalArgumentException("row " + row + " of board is too short");
+				}
+				Tile tile;
+				if (c == 'o') {
+					if (player) {
+						throw new IllegalArgumentException("board has more than one player");
+					}
+					player = true;
+					tile = new Player();
+				} else {
+					tile = c < TILES.length ? TILES[c] : null;
+				}
+				if (tile == null) {
+					throw new IllegalArgumentException("invalid character");
+				}
+				game.setTile(y * width + x, tile);
+			}
+			// Check the end of the row
+			if (input.read() != '|') {
+				throw new IllegalArgumentException("row " + row + " of board is too long");
+			}
+			c = input.read();
+			if (c == '\r') {
+				c = input.read();
+			}
+			if (c != '\n' && c >= 0) {
+				throw new IllegalArgumentException("unexpected character after row " + row + " of board");
+			}
+		}
+	}
+}
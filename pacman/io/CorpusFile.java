@@ -0,0 +1,632 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import pacman.batch.Job;
+
+/**
+ * A single file holding many games, each of which is a starting board, a
+ * sequence of moves and the expected final board (or none, if the sequence is
+ * expected to be invalid). Most games are played on one of a small number of
+ * boards, and so each distinct board is stored only once. The file is laid out
+ * as follows, where all integers are big-endian:
+ *
+ * <ul>
+ * <li><b>Header</b> (16 bytes). The magic number <code>PACC</code>, the format
+ * version (2 bytes), two reserved bytes and the offset of the last footer (8
+ * bytes).</li>
+ * <li><b>Entries</b>, in the order they were added. A board entry holds the
+ * width, height and length of the board text (4 bytes each), followed by the
+ * text itself. A game entry holds the index of its starting board, the index of
+ * its expected final board (or -1 if the game is expected to be invalid) and
+ * the length of its sequence (4 bytes each), followed by the sequence
+ * itself.</li>
+ * <li><b>Index segments</b>, one after the entries added by each writer. A
+ * segment holds the offset of each game entry added by the writer, followed by
+ * the offset of each board entry it added (8 bytes each).</li>
+ * <li><b>Footers</b> (28 bytes), one after each index segment. The total
+ * number of games and boards so far (4 bytes each), the offset of the segment
+ * (8 bytes), the offset of the previous footer or -1 if there is none (8
+ * bytes) and the magic number again.</li>
+ * </ul>
+ *
+ * New games are added to a file by writing their entries after the last
+ * footer, followed by a segment holding only their offsets and a footer which
+ * chains back to the previous one. Once these are safely written, the header
+ * is updated to point at the new footer. No other existing bytes are modified,
+ * so a writer which fails before updating the header leaves the earlier games
+ * readable, and the bytes it left behind are overwritten by the next writer.
+ * Since each segment holds only the new offsets, the file never holds more
+ * than one offset for each entry. Opening a file walks the chain of footers,
+ * after which a game can be fetched by its id (i.e. the order in which it was
+ * added) by finding its segment and then with a single lookup in it. Since
+ * games are held in the order of their ids, iterating over them reads the file
+ * from start to end. A file is read by mapping it into memory, which limits it
+ * to 2GB.
+ */
+public final class CorpusFile implements Iterable<Job> {
+	/**
+	 * The current version of the format.
+	 */
+	public static final int VERSION = 2;
+
+	/**
+	 * The magic number at the start and end of every file (i.e. "PACC").
+	 */
+	private static final int MAGIC = 0x50414343;
+
+	private static final int HEADER_SIZE = 16;
+
+	private static final int FOOTER_SIZE = 28;
+
+	/**
+	 * Offset in the header of the offset of the last footer.
+	 */
+	private static final int LAST_FOOTER = 8;
+
+	private final ByteBuffer data;
+	private final int games;
+	private final int boards;
+
+	/**
+	 * The first game and board in each index segment, in order, followed by the
+	 * total number of games and boards.
+	 */
+	private final int[] segmentGames;
+	private final int[] segmentBoards;
+
+	/**
+	 * The offset of each index segment.
+	 */
+	private final int[] segmentStarts;
+
+	/**
+	 * The text of each board which has been read so far. Games on the same board
+	 * therefore share the same string, which makes them cheap to look up in a
+	 * cache of templates.
+	 */
+	private final String[] boardText;
+
+	private CorpusFile(ByteBuffer data) throws IOException {
+		Footer[] footers = Footer.chain(data);
+		final int n = footers.length;
+		this.data = data;
+		this.games = footers[n - 1].games;
+		this.boards = footers[n - 1].boards;
+		this.segmentGames = new int[n + 1];
+		this.segmentBoards = new int[n + 1];
+		this.segmentStarts = new int[n];
+		for (int i = 0; i != n; ++i) {
+			segmentGames[i + 1] = footers[i].games;
+			segmentBoards[i + 1] = footers[i].boards;
+			segmentStarts[i] = (int) footers[i].indexStart;
+		}
+		this.boardText = new String[boards];
+	}
+
+	/**
+	 * Open a corpus file by mapping it into memory.
+	 *
+	 * @param path The file to open.
+	 * @return The corpus file.
+	 * @throws IOException If the file cannot be read, or is not a valid corpus
+	 *                     file.
+	 */
+	public static CorpusFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("corpus file too large to map");
+			}
+			return new CorpusFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Open a corpus file for adding games, creating it if it does not exist.
+	 *
+	 * @param path The file to open.
+	 * @return A writer which adds games to the end of the file.
+	 * @throws IOException If the file cannot be opened, or is not a valid corpus
+	 *                     file.
+	 */
+	public static Writer append(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			return new Writer(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of games in the corpus.
+	 *
+	 * @return Number of games.
+	 */
+	public int size() {
+		return games;
+	}
+
+	/**
+	 * Get the number of distinct boards in the corpus, including expected final
+	 * boards.
+	 *
+	 * @return Number of boards.
+	 */
+	public int getBoardCount() {
+		return boards;
+	}
+
+	/**
+	 * Get the game with a given id.
+	 *
+	 * @param id Id of the game (i.e. the order in which it was added).
+	 * @return The game.
+	 */
+	public Job get(int id) {
+		if (id < 0 || id >= games) {
+			throw new IndexOutOfBoundsException(id);
+		}
+		int segment = segmentOf(segmentGames, id);
+		return readGame((int) data.getLong(segmentStarts[segment] + (id - segmentGames[segment]) * 8));
+	}
+
+	/**
+	 * Iterate over the games in the corpus in order of their ids.
+	 */
+	@Override
+	public Iterator<Job> iterator() {
+		return new Iterator<Job>() {
+			private int id;
+
+			@Override
+			public boolean hasNext() {
+				return id < games;
+			}
+
+			@Override
+			public Job next() {
+				if (id == games) {
+					throw new NoSuchElementException();
+				}
+				return get(id++);
+			}
+		};
+	}
+
+	/**
+	 * Read the game entry at a given offset.
+	 */
+	private Job readGame(int offset) {
+		int board = data.getInt(offset);
+		int expected = data.getInt(offset + 4);
+		String sequence = readString(offset + 8);
+		int boardOffset = boardOffset(board);
+		int width = data.getInt(boardOffset);
+		int height = data.getInt(boardOffset + 4);
+		return new Job(board(board), width, height, sequence, expected < 0 ? null : board(expected));
+	}
+
+	/**
+	 * Get the text of the board with a given index.
+	 */
+	private String board(int index) {
+		String text = boardText[index];
+		if (text == null) {
+			text = readString(boardOffset(index) + 8);
+			boardText[index] = text;
+		}
+		return text;
+	}
+
+	private int boardOffset(int index) {
+		int segment = segmentOf(segmentBoards, index);
+		int added = segmentGames[segment + 1] - segmentGames[segment];
+		return (int) data.getLong(segmentStarts[segment] + (added + index - segmentBoards[segment]) * 8);
+	}
+
+	/**
+	 * Find the index segment holding the offset of a given game or board, i.e.
+	 * the last segment which starts at or before it.
+	 *
+	 * @param firsts The first game (or board) in each segment, followed by the
+	 *               total.
+	 * @param index  Id of the game (or index of the board).
+	 */
+	private static int segmentOf(int[] firsts, int index) {
+		int lo = 0;
+		int hi = firsts.length - 1;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (firsts[mid] <= index) {
+				lo = mid;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Read a length-prefixed string at a given offset.
+	 */
+	private String readString(int offset) {
+		byte[] bytes = new byte[data.getInt(offset)];
+		data.get(offset + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A footer, which follows the index segment written by each writer.
+	 */
+	private static final class Footer {
+		final long offset;
+		final int games;
+		final int boards;
+		final long indexStart;
+		final long previous;
+
+		private Footer(long offset, int games, int boards, long indexStart, long previous) {
+			this.offset = offset;
+			this.games = games;
+			this.boards = boards;
+			this.indexStart = indexStart;
+			this.previous = previous;
+		}
+
+		/**
+		 * Read the chain of footers which ends with the footer named in the header,
+		 * checking that each is consistent with the one before it and with the
+		 * index segment between them. Since the header is only updated once a
+		 * writer has written its footer, no search for the last footer is needed
+		 * even when a writer failed part way through.
+		 *
+		 * @return The footers, in the order they were written.
+		 */
+		static Footer[] chain(ByteBuffer data) throws IOException {
+			if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+				throw new IOException("not a corpus file");
+			}
+			int version = data.getShort(4);
+			if (version != VERSION) {
+				throw new IOException("unsupported corpus file version " + version);
+			}
+			ArrayList<Footer> footers = new ArrayList<>();
+			long offset = data.getLong(LAST_FOOTER);
+			do {
+				Footer footer = at(data, offset);
+				if (footer == null) {
+					throw new IOException("corpus file has no valid index");
+				}
+				footers.add(footer);
+				offset = footer.previous;
+			} while (offset >= 0);
+			Collections.reverse(footers);
+			int games = 0;
+			int boards = 0;
+			for (Footer footer : footers) {
+				if (footer.games < games || footer.boards < boards || footer.indexStart
+						+ ((footer.games - games) + (long) (footer.boards - boards)) * 8 != footer.offset) {
+					throw new IOException("corpus file has no valid index");
+				}
+				games = footer.games;
+				boards = footer.boards;
+			}
+			return footers.toArray(new Footer[footers.size()]);
+		}
+
+		/**
+		 * Read the footer at a given offset, or return <code>null</code> if there
+		 * is none. The previous footer (if any) must come before the footer's index
+		 * segment, so following the chain always terminates.
+		 */
+		private static Footer at(ByteBuffer data, long offset) {
+			if (offset < HEADER_SIZE || offset > data.limit() - FOOTER_SIZE) {
+				return null;
+			}
+			final int o = (int) offset;
+			if (data.getInt(o + FOOTER_SIZE - 4) != MAGIC) {
+				return null;
+			}
+			int games = data.getInt(o);
+			int boards = data.getInt(o + 4);
+			long indexStart = data.getLong(o + 8);
+			long previous = data.getLong(o + 16);
+			if (games < 0 || boards < 0 || indexStart < HEADER_SIZE || indexStart > offset
+					|| (previous != -1 && (previous < HEADER_SIZE || previous > indexStart - FOOTER_SIZE))) {
+				return null;
+			}
+			return new Footer(offset, games, boards, indexStart, previous);
+		}
+	}
+
+	/**
+	 * Adds games to the end of a corpus file. The new index segment is only
+	 * written when the writer is closed, and so the games added by a writer which
+	 * is not closed properly are lost, but those already in the file are not.
+	 */
+	public static final class Writer implements AutoCloseable {
+		/**
+		 * Number of bytes buffered before they are written to the file.
+		 */
+		private static final int BUFFER_SIZE = 65536;
+
+		private final FileChannel channel;
+
+		/**
+		 * Entries which have not yet been written to the file.
+		 */
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/**
+		 * Offset in the file at which the buffer starts.
+		 */
+		private long position;
+
+		/**
+		 * Offset of each game added by this writer, and of every board.
+		 */
+		private long[] gameOffsets = new long[16];
+		private int games;
+		private long[] boardOffsets;
+		private int boards;
+
+		/**
+		 * Number of games and boards in the file before this writer added any.
+		 */
+		private int firstGame;
+		private int firstBoard;
+
+		/**
+		 * Offset of the last footer in the file.
+		 */
+		private long lastFooter;
+
+		/**
+		 * Maps the content hash of each board to the index of the first board with
+		 * that hash. Boards with the same hash are chained through
+		 * <code>nextBoard</code>.
+		 */
+		private final HashMap<Long, Integer> boardsByHash = new HashMap<>();
+		private int[] nextBoard;
+
+		private Writer(FileChannel channel) throws IOException {
+			this.channel = channel;
+			long size = channel.size();
+			if (size == 0) {
+				boardOffsets = new long[16];
+				nextBoard = new int[16];
+				// Start with an empty index, so the file is valid straight away
+				buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putLong(HEADER_SIZE);
+				writeFooter(HEADER_SIZE, -1);
+				flush();
+				lastFooter = HEADER_SIZE;
+				return;
+			} else if (size > Integer.MAX_VALUE) {
+				throw new IOException("corpus file too large to map");
+			}
+			// Read the existing index, which is left in place
+			ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			Footer[] footers = Footer.chain(data);
+			Footer last = footers[footers.length - 1];
+			games = firstGame = last.games;
+			boards = firstBoard = last.boards;
+			boardOffsets = new long[Math.max(16, boards)];
+			nextBoard = new int[boardOffsets.length];
+			int gamesBefore = 0;
+			int boardsBefore = 0;
+			for (Footer footer : footers) {
+				final long start = footer.indexStart + (footer.games - gamesBefore) * 8L;
+				for (int i = boardsBefore; i != footer.boards; ++i) {
+					boardOffsets[i] = data.getLong((int) (start + (i - boardsBefore) * 8L));
+					int offset = (int) boardOffsets[i];
+					byte[] text = new byte[data.getInt(offset + 8)];
+					data.get(offset + 12, text);
+					remember(i, hash(data.getInt(offset), data.getInt(offset + 4), text));
+				}
+				gamesBefore = footer.games;
+				boardsBefore = footer.boards;
+			}
+			// Anything after the last footer was left by a writer which failed, and
+			// is overwritten
+			lastFooter = last.offset;
+			position = last.offset + FOOTER_SIZE;
+		}
+
+		/**
+		 * Add a game to the corpus.
+		 *
+		 * @param job The game to add.
+		 * @return Id of the game.
+		 * @throws IOException If the file cannot be written.
+		 */
+		public int add(Job job) throws IOException {
+			int board = addBoard(job.getWidth(), job.getHeight(), job.getBoard());
+			int expected = -1;
+			if (job.getExpectedBoard() != null) {
+				expected = addBoard(job.getWidth(), job.getHeight(), job.getExpectedBoard());
+			}
+			byte[] sequence = job.getSequence().getBytes(StandardCharsets.UTF_8);
+			if (games - firstGame == gameOffsets.length) {
+				gameOffsets = Arrays.copyOf(gameOffsets, gameOffsets.length * 2);
+			}
+			gameOffsets[games - firstGame] = position + buffer.position();
+			ensureCapacity(12 + sequence.length);
+			buffer.putInt(board).putInt(expected).putInt(sequence.length).put(sequence);
+			return games++;
+		}
+
+		/**
+		 * Add a board to the corpus, unless it is already present.
+		 *
+		 * @return Index of the board.
+		 */
+		private int addBoard(int width, int height, String board) throws IOException {
+			byte[] text = board.getBytes(StandardCharsets.UTF_8);
+			long hash = hash(width, height, text);
+			Integer first = boardsByHash.get(hash);
+			for (int i = first == null ? -1 : first; i >= 0; i = nextBoard[i]) {
+				if (sameBoard(i, width, height, text)) {
+					return i;
+				}
+			}
+			if (boards == boardOffsets.length) {
+				boardOffsets = Arrays.copyOf(boardOffsets, boards * 2);
+				nextBoard = Arrays.copyOf(nextBoard, boards * 2);
+			}
+			boardOffsets[boards] = position + buffer.position();
+			ensureCapacity(12 + text.length);
+			buffer.putInt(width).putInt(height).putInt(text.length).put(text);
+			remember(boards, hash);
+			return boards++;
+		}
+
+		/**
+		 * Record the content hash of a given board.
+		 */
+		private void remember(int index, long hash) {
+			Integer first = boardsByHash.put(hash, index);
+			nextBoard[index] = first == null ? -1 : first;
+		}
+
+		/**
+		 * Check whether the board with a given index has the given contents, by
+		 * reading it back. This is only needed when the content hashes match.
+		 */
+		private boolean sameBoard(int index, int width, int height, byte[] text) throws IOException {
+			long offset = boardOffsets[index];
+			ByteBuffer stored;
+			if (offset >= position) {
+				// The board has not yet been written out
+				int start = (int) (offset - position);
+				stored = ByteBuffer.wrap(buffer.array(), start, buffer.position() - start).slice();
+			} else {
+				stored = ByteBuffer.allocate(12);
+				readFully(stored, offset);
+			}
+			if (stored.getInt(0) != width || stored.getInt(4) != height || stored.getInt(8) != text.length) {
+				return false;
+			}
+			byte[] contents = new byte[text.length];
+			if (offset >= position) {
+				stored.get(12, contents);
+			} else {
+				readFully(ByteBuffer.wrap(contents), offset + 12);
+			}
+			return Arrays.equals(contents, text);
+		}
+
+		/**
+		 * Ensure that the buffer has room for an entry of a given size, writing out
+		 * (or growing) the buffer if necessary.
+		 */
+		private void ensureCapacity(int size) throws IOException {
+			if (buffer.remaining() < size) {
+				flush();
+				if (buffer.capacity() < size) {
+					buffer = ByteBuffer.allocate(size);
+				}
+			}
+		}
+
+		/**
+		 * Write out the buffer.
+		 */
+		private void flush() throws IOException {
+			buffer.flip();
+			int n = buffer.remaining();
+			writeFully(buffer, position);
+			position += n;
+			buffer.clear();
+		}
+
+		/**
+		 * Write the index segment and footer for the games and boards added by this
+		 * writer (if any), point the header at the new footer, and close the file.
+		 *
+		 * @throws IOException If the file cannot be written.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				if (games == firstGame && boards == firstBoard) {
+					return;
+				}
+				flush();
+				long indexStart = position;
+				for (int i = firstGame; i != games; ++i) {
+					ensureCapacity(8);
+					buffer.putLong(gameOffsets[i - firstGame]);
+				}
+				for (int i = firstBoard; i != boards; ++i) {
+					ensureCapacity(8);
+					buffer.putLong(boardOffsets[i]);
+				}
+				ensureCapacity(FOOTER_SIZE);
+				long footer = position + buffer.position();
+				writeFooter(indexStart, lastFooter);
+				flush();
+				// The footer must be in place before the header points to it
+				channel.force(false);
+				ByteBuffer header = ByteBuffer.allocate(8);
+				header.putLong(footer).flip();
+				writeFully(header, LAST_FOOTER);
+			} finally {
+				channel.close();
+			}
+		}
+
+		/**
+		 * Write a footer for an index segment starting at a given offset.
+		 */
+		private void writeFooter(long indexStart, long previous) throws IOException {
+			ensureCapacity(FOOTER_SIZE);
+			buffer.putInt(games).putInt(boards).putLong(indexStart).putLong(previous).putInt(MAGIC);
+		}
+
+		private void writeFully(ByteBuffer src, long offset) throws IOException {
+			while (src.hasRemaining()) {
+				offset += channel.write(src, offset);
+			}
+		}
+
+		private void readFully(ByteBuffer dst, long offset) throws IOException {
+			while (dst.hasRemaining()) {
+				int n = channel.read(dst, offset);
+				if (n < 0) {
+					throw new IOException("truncated corpus file");
+				}
+				offset += n;
+			}
+		}
+
+		/**
+		 * Compute a content hash (64-bit FNV-1a) of a board.
+		 */
+		private static long hash(int width, int height, byte[] text) {
+			long hash = 0xcbf29ce484222325L;
+			hash = (hash ^ width) * 0x100000001b3L;
+			hash = (hash ^ height) * 0x100000001b3L;
+			for (byte b : text) {
+				hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+			}
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,417 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import pacman.Game;
+import pacman.Game.Outcome;
+import pacman.events.EventBuffer;
+import pacman.events.PlayerMove.Direction;
+import pacman.tiles.*;
+
+/**
+ * A compact binary file holding a starting board and a sequence of events. The
+ * file is laid out as follows, where all integers are big-endian:
+ *
+ * <ul>
+ * <li><b>Header</b> (32 bytes). The magic number <code>PACB</code>, the format
+ * version (2 bytes), two reserved bytes, and then the width, height, remaining
+ * powerup of the player, number of special tiles, number of events and number
+ * of escapes (4 bytes each).</li>
+ * <li><b>Grid</b>. Two bits per cell in row-major order from the bottom row,
+ * packed four to a byte starting from the low bits. These are 0 for air, 1 for
+ * a wall, 2 for a dot, and 3 for a special tile.</li>
+ * <li><b>Special tiles</b>. One byte for each special tile, in the order they
+ * appear in the grid. Bits 0-1 give the kind (0 for a pill, 1 for the player
+ * and 2 for a ghost), bits 2-3 give the direction (ordinal) of a ghost, and bit
+ * 4 whether the ghost is on a dot.</li>
+ * <li><b>Escapes</b>. The indices of the game over events in the sequence, in
+ * ascending order (4 bytes each).</li>
+ * <li><b>Events</b>. Two bits per event, packed in the same way as the grid.
+ * Normally these give the ordinal of the direction of a player move. For an
+ * escaped event, they are instead 0 for a won game (<code>!</code>) and 1 for
+ * a lost game (<code>?</code>).</li>
+ * </ul>
+ *
+ * A file is read by mapping it into memory, so events can be fed into a game
+ * straight from the file without first being copied onto the heap.
+ */
+public final class GameFile {
+	/**
+	 * The current version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The magic number at the start of every file (i.e. "PACB").
+	 */
+	private static final int MAGIC = 0x50414342;
+
+	private static final int HEADER_SIZE = 32;
+
+	// Codes used in the grid
+	private static final int GRID_AIR = 0;
+	private static final int GRID_WALL = 1;
+	private static final int GRID_DOT = 2;
+	private static final int GRID_SPECIAL = 3;
+
+	// Kinds of special tile
+	private static final int SPECIAL_PILL = 0;
+	private static final int SPECIAL_PLAYER = 1;
+	private static final int SPECIAL_GHOST = 2;
+
+	/**
+	 * The directions of movement, indexed by ordinal.
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final ByteBuffer data;
+	private final int width;
+	private final int height;
+	private final int powerupLeft;
+	private final int specials;
+	private final int events;
+	private final int escapes;
+	private final int specialsStart;
+	private final int escapesStart;
+	private final int eventsStart;
+
+	private GameFile(ByteBuffer data) throws IOException {
+		if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+			throw new IOException("not a game file");
+		}
+		int version = data.getShort(4);
+		if (version != VERSION) {
+			throw new IOException("unsupported game file version " + version);
+		}
+		this.data = data;
+		this.width = data.getInt(8);
+		this.height = data.getInt(12);
+		this.powerupLeft = data.getInt(16);
+		this.specials = data.getInt(20);
+		this.events = data.getInt(24);
+		this.escapes = data.getInt(28);
+		if (width < 0 || height < 0 || specials < 0 || events < 0 || escapes < 0) {
+			throw new IOException("corrupt game file header");
+		}
+		final long cells = (long) width * height;
+		if (cells > Integer.MAX_VALUE || specials > cells) {
+			throw new IOException("corrupt game file header");
+		}
+		// Compute each section offset in long, so that none can wrap around
+		final long limit = data.limit();
+		final long specialsStart = HEADER_SIZE + packedSize(cells);
+		final long escapesStart = specialsStart + specials;
+		final long eventsStart = escapesStart + escapes * 4L;
+		final long end = eventsStart + packedSize(events);
+		if (specialsStart > limit || escapesStart > limit || eventsStart > limit || end > limit) {
+			throw new IOException("truncated game file");
+		}
+		this.specialsStart = (int) specialsStart;
+		this.escapesStart = (int) escapesStart;
+		this.eventsStart = (int) eventsStart;
+	}
+
+	/**
+	 * Open a game file by mapping it into memory.
+	 *
+	 * @param path The file to open.
+	 * @return The game file.
+	 * @throws IOException If the file cannot be read, or is not a valid game file.
+	 */
+	public static GameFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new GameFile(data);
+		}
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return Board width.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return Board height.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get the number of events in the sequence.
+	 *
+	 * @return Number of events.
+	 */
+	public int getEventCount() {
+		return events;
+	}
+
+	/**
+	 * Create a new game holding the starting board.
+	 *
+	 * @return The game.
+	 * @throws GameError If the number of special tiles in the grid does not match
+	 *                   the header.
+	 */
+	public Game newGame() {
+		Game game = new Game(width, height);
+		final int cells = width * height;
+		final int specialsEnd = specialsStart + specials;
+		int special = specialsStart;
+		for (int cell = 0; cell != cells; ++cell) {
+			switch (unpack(HEADER_SIZE, cell)) {
+				case GRID_WALL:
+					game.setTile(cell, Wall.WALL);
+					break;
+				case GRID_DOT:
+					game.setTile(cell, Dot.DOT);
+					break;
+				case GRID_SPECIAL:
+					if (special == specialsEnd) {
+						throw new GameError("corrupt game file: more special tiles than expected");
+					}
+					game.setTile(cell, decodeSpecial(data.get(special++)));
+					break;
+			}
+		}
+		if (special != specialsEnd) {
+			throw new GameError("corrupt game file: fewer special tiles than expected");
+		}
+		return game;
+	}
+
+	/**
+	 * Get the code (as used by <code>EventBuffer</code>) of the event at a given
+	 * index in the sequence.
+	 *
+	 * @param index Index of the event.
+	 * @return Code of the event.
+	 */
+	public byte getEvent(int index) {
+		return decodeEvent(index, isEscaped(index));
+	}
+
+	/**
+	 * Copy the sequence of events into an <code>EventBuffer</code>.
+	 *
+	 * @return The events.
+	 */
+	public EventBuffer getEvents() {
+		EventBuffer buffer = new EventBuffer();
+		int escape = 0;
+		for (int i = 0; i != events; ++i) {
+			boolean escaped = escape < escapes && escapeAt(escape) == i;
+			if (escaped) {
+				escape = escape + 1;
+			}
+			buffer.append(decodeEvent(i, escaped));
+		}
+		return buffer;
+	}
+
+	/**
+	 * Run a game over the sequence of events, reading each one directly from the
+	 * file, whilst checking each move against the rules of Pacman.
+	 *
+	 * @param game The game to run.
+	 */
+	public void run(Game game) {
+		int escape = 0;
+		for (int i = 0; i != events; ++i) {
+			boolean escaped = escape < escapes && escapeAt(escape) == i;
+			if (escaped) {
+				escape = escape + 1;
+			}
+			if (game.step(decodeEvent(i, escaped)) == Outcome.INVALID) {
+				throw new GameError(game.getInvalidReason());
+			}
+		}
+	}
+
+	/**
+	 * Write a game file holding the current board of a given game, and a sequence
+	 * of events.
+	 *
+	 * @param game   The game holding the starting board.
+	 * @param events The sequence of events.
+	 * @param path   The file to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(Game game, EventBuffer events, Path path) throws IOException {
+		final int cells = game.getWidth() * game.getHeight();
+		final int n = events.size();
+		// First, determine the special tiles and escaped events
+		int specials = 0;
+		int powerupLeft = 0;
+		for (int cell = 0; cell != cells; ++cell) {
+			Tile tile = game.getTile(cell);
+			if (tile instanceof Player) {
+				powerupLeft = ((Player) tile).getPowerupLeft();
+			}
+			if (gridCode(tile) == GRID_SPECIAL) {
+				specials = specials + 1;
+			}
+		}
+		int escapes = 0;
+		for (int i = 0; i != n; ++i) {
+			if (!EventBuffer.isMove(events.get(i))) {
+				escapes = escapes + 1;
+			}
+		}
+		// Second, lay out the file
+		final long specialsStart = HEADER_SIZE + packedSize(cells);
+		final long escapesStart = specialsStart + specials;
+		final long eventsStart = escapesStart + escapes * 4L;
+		final long end = eventsStart + packedSize(n);
+		if (end > Integer.MAX_VALUE) {
+			throw new IOException("game too large for a game file");
+		}
+		ByteBuffer data = ByteBuffer.allocate((int) end);
+		data.putInt(0, MAGIC);
+		data.putShort(4, (short) VERSION);
+		data.putInt(8, game.getWidth());
+		data.putInt(12, game.getHeight());
+		data.putInt(16, powerupLeft);
+		data.putInt(20, specials);
+		data.putInt(24, n);
+		data.putInt(28, escapes);
+		int special = (int) specialsStart;
+		for (int cell = 0; cell != cells; ++cell) {
+			Tile tile = game.getTile(cell);
+			int code = gridCode(tile);
+			pack(data, HEADER_SIZE, cell, code);
+			if (code == GRID_SPECIAL) {
+				data.put(special++, encodeSpecial(tile));
+			}
+		}
+		int escape = (int) escapesStart;
+		for (int i = 0; i != n; ++i) {
+			byte code = events.get(i);
+			if (EventBuffer.isMove(code)) {
+				pack(data, (int) eventsStart, i, code);
+			} else {
+				data.putInt(escape, i);
+				escape = escape + 4;
+				pack(data, (int) eventsStart, i, code == EventBuffer.WON ? 0 : 1);
+			}
+		}
+		Files.write(path, data.array());
+	}
+
+	/**
+	 * Determine the code used in the grid for a given tile.
+	 */
+	private static int gridCode(Tile tile) {
+		if (tile instanceof Wall) {
+			return GRID_WALL;
+		} else if (tile instanceof Dot) {
+			return GRID_DOT;
+		} else if (tile instanceof Air) {
+			return GRID_AIR;
+		} else {
+			return GRID_SPECIAL;
+		}
+	}
+
+	/**
+	 * Encode a special tile (i.e. a pill, the player or a ghost) as a byte.
+	 */
+	private static byte encodeSpecial(Tile tile) {
+		if (tile instanceof Pill) {
+			return SPECIAL_PILL;
+		} else if (tile instanceof Player) {
+			return SPECIAL_PLAYER;
+		} else {
+			Ghost ghost = (Ghost) tile;
+			int code = SPECIAL_GHOST | ghost.getDirection().ordinal() << 2;
+			return (byte) (ghost.isOnDot() ? code | 16 : code);
+		}
+	}
+
+	/**
+	 * Decode a special tile from a byte.
+	 */
+	private Tile decodeSpecial(byte code) {
+		switch (code & 3) {
+			case SPECIAL_PILL:
+				return Pill.PILL;
+			case SPECIAL_PLAYER:
+				return new Player(powerupLeft);
+			default:
+				return new Ghost(DIRECTIONS[(code >> 2) & 3], (code & 16) != 0);
+		}
+	}
+
+	/**
+	 * Decode the event at a given index.
+	 */
+	private byte decodeEvent(int index, boolean escaped) {
+		int code = unpack(eventsStart, index);
+		if (escaped) {
+			return code == 0 ? EventBuffer.WON : EventBuffer.LOST;
+		}
+		return (byte) code;
+	}
+
+	/**
+	 * Check whether the event at a given index is escaped, using a binary search of
+	 * the escapes.
+	 */
+	private boolean isEscaped(int index) {
+		int lo = 0;
+		int hi = escapes;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int e = escapeAt(mid);
+			if (e == index) {
+				return true;
+			} else if (e < index) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return false;
+	}
+
+	private int escapeAt(int i) {
+		return data.getInt(escapesStart + i * 4);
+	}
+
+	/**
+	 * Get the 2-bit value at a given index of a packed array.
+	 */
+	private int unpack(int start, int index) {
+		return (data.get(start + (index >>> 2)) >>> ((index & 3) << 1)) & 3;
+	}
+
+	/**
+	 * Set the 2-bit value at a given index of a packed array.
+	 */
+	private static void pack(ByteBuffer data, int start, int index, int value) {
+		int offset = start + (index >>> 2);
+		data.put(offset, (byte) (data.get(offset) | value << ((index & 3) << 1)));
+	}
+
+	/**
+	 * Determine the number of bytes needed for a given number of 2-bit values.
+	 */
+	private static long packedSize(long count) {
+		return (count + 3) / 4;
+	}
+}
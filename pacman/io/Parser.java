@@ -3,6 +3,10 @@
 // it in any other way without permission.
 package pacman.io;
 
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import pacman.Game;
@@ -10,14 +14,34 @@ import pacman.events.*;
 import pacman.events.PlayerMove.Direction;
 
 /**
- * Responsible for parsing an input sequence of the game.
+ * Responsible for parsing an input sequence of the game. The input is read in
+ * fixed-size chunks, so that a sequence can either be parsed in one go (using
+ * <code>parse()</code>) or streamed into a game one event at a time (using
+ * <code>stream()</code>) without ever holding the whole sequence in memory.
+ *
+ * A move may be followed by a count, which repeats it that many times (e.g.
+ * <code>R10U6</code> is ten moves right followed by six moves up). The count is
+ * kept with the move, rather than expanded into separate events, until the
+ * moves are applied.
  *
  * @author David J. Pearce
  *
  */
 public class Parser {
-	private String text; // text to be processed
-	private int index; // position into text
+	/**
+	 * Number of characters read from the input at a time.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+
+	private final Reader input; // input to be processed
+	private final char[] buffer; // current chunk of input
+	private int index; // position into buffer
+	private int limit; // number of characters in buffer
+	private int lineStart; // position in buffer where current line starts
+	private int line; // line number of next character
+	private int column; // column number of next character
+	private int runLength; // number of times the last parsed event is repeated
+	private int room = Integer.MAX_VALUE; // number of events which can still be parsed
 
 	/**
 	 * Construct a new parser for a given input sequence expressed as a textual
@@ -26,8 +50,46 @@ public class Parser {
 	 * @param text The sequence of moves to be parsed.
 	 */
 	public Parser(String text) {
-		this.text = text;
+		this(new StringReader(text), Math.max(1, Math.min(text.length(), CHUNK_SIZE)));
+	}
+
+	/**
+	 * Construct a new parser for an input sequence read from a given reader.
+	 *
+	 * @param input The sequence of moves to be parsed.
+	 */
+	public Parser(Reader input) {
+		this(input, CHUNK_SIZE);
+	}
+
+	/**
+	 * Construct a new parser for an input sequence read from a given stream. The
+	 * sequence is assumed to be ASCII text.
+	 *
+	 * @param input The sequence of moves to be parsed.
+	 */
+	public Parser(InputStream input) {
+		this(new InputStreamReader(input, StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Construct a new parser for an input sequence read from a given channel. The
+	 * sequence is assumed to be ASCII text.
+	 *
+	 * @param input The sequence of moves to be parsed.
+	 */
+	public Parser(ReadableByteChannel input) {
+		this(Channels.newReader(input, StandardCharsets.US_ASCII.newDecoder(), CHUNK_SIZE));
+	}
+
+	private Parser(Reader input, int chunkSize) {
+		this.input = input;
+		this.buffer = new char[chunkSize];
 		this.index = 0;
+		this.limit = 0;
+		this.lineStart = 0;
+		this.line = 1;
+		this.column = 1;
 	}
 
 	/**
@@ -39,74 +101,190 @@ public class Parser {
 	 * @return Game object representing the game
 	 */
 	public Game parse(int width, int height) {
-		ArrayList<Event> events = new ArrayList<>();
-		// Third, parse each move!
-		while (index < text.length()) {
-			events.add(parseEvent());
-		}
-		// Convert list of events into an array
-		Event[] arrayOfMoves = events.toArray(new Event[events.size()]);
 		// Create game
-		return new Game(width, height, arrayOfMoves);
+		return new Game(width, height, parseEvents());
 	}
 
 	/**
-	 * This method parses a given event in the game, and constructs an object of the
-	 * appropriate type to represent it.
+	 * Parse the input sequence into an encoded sequence of events, independently
+	 * of any game. This can then be run on any number of games (e.g. as created
+	 * from a <code>BoardTemplate</code>).
 	 *
-	 * @return Event which was parsed
+	 * @return The encoded events.
+	 */
+	public EventBuffer parseEvents() {
+		EventBuffer events = new EventBuffer();
+		while (fill()) {
+			// the total number of events must fit in the buffer
+			room = Integer.MAX_VALUE - events.size();
+			byte code = parseEvent();
+			events.append(code, runLength);
+		}
+		return events;
+	}
+
+	/**
+	 * Parse the input sequence lazily, producing each event only when it is
+	 * requested. This allows an arbitrarily long sequence to be fed into a game
+	 * (e.g. using <code>Game.run(Iterator)</code>) using a bounded amount of
+	 * memory. Syntax errors are reported when the offending event is reached.
+	 *
+	 * @return Iterator over the events in the sequence.
+	 */
+	public Iterator<Event> stream() {
+		return new Iterator<Event>() {
+			private byte code; // code of the current run
+			private int remaining; // number of events left in the current run
+
+			@Override
+			public boolean hasNext() {
+				return remaining > 0 || fill();
+			}
+
+			@Override
+			public Event next() {
+				if (remaining == 0) {
+					if (!fill()) {
+						throw new NoSuchElementException();
+					}
+					code = parseEvent();
+					remaining = runLength;
+				}
+				remaining = remaining - 1;
+				return EventBuffer.toEvent(code);
+			}
+		};
+	}
+
+	/**
+	 * Ensure there is at least one character available in the buffer, reading the
+	 * next chunk of input if necessary.
+	 *
+	 * @return True if a character is available, or false if the end of the input
+	 *         has been reached.
+	 */
+	private boolean fill() {
+		if (index < limit) {
+			return true;
+		}
+		try {
+			int n;
+			do {
+				n = input.read(buffer, 0, buffer.length);
+			} while (n == 0);
+			if (n < 0) {
+				return false;
+			}
+			// The start of the current line is no longer in the buffer
+			lineStart = index == lineStart ? 0 : -1;
+			index = 0;
+			limit = n;
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * This method parses a given event in the game, and determines the code used
+	 * to represent it in an <code>EventBuffer</code>. The number of times it is
+	 * repeated is left in <code>runLength</code>.
+	 *
+	 * @return Code of the event which was parsed
 	 * @throws GameError
 	 */
-	private Event parseEvent() {
-		char moveCharacter = text.charAt(index++);
+	private byte parseEvent() {
+		char moveCharacter = buffer[index];
+		runLength = 1;
+		if (room == 0) {
+			syntaxError("too many events in sequence");
+		}
 		switch (moveCharacter) {
 			case '!':
-				return new GameOver(true);
+				advance();
+				return EventBuffer.WON;
 			case '?':
-				return new GameOver(false);
+				advance();
+				return EventBuffer.LOST;
 			case 'U':
-				return new PlayerMove(Direction.UP);
+				advance();
+				runLength = parseRunLength();
+				return (byte) Direction.UP.ordinal();
 			case 'D':
-				return new PlayerMove(Direction.DOWN);
+				advance();
+				runLength = parseRunLength();
+				return (byte) Direction.DOWN.ordinal();
 			case 'L':
-				return new PlayerMove(Direction.LEFT);
+				advance();
+				runLength = parseRunLength();
+				return (byte) Direction.LEFT.ordinal();
 			case 'R':
-				return new PlayerMove(Direction.RIGHT);
+				advance();
+				runLength = parseRunLength();
+				return (byte) Direction.RIGHT.ordinal();
 			default:
 				syntaxError("unknown event character encountered");
 		}
-		return null;
+		return -1;
 	}
 
 	/**
-	 * Print out useful debugging output, and throw a SyntaxError exception
+	 * Parse the optional count following a move.
+	 *
+	 * @return Number of times the move is repeated, which is 1 if there is no
+	 *         count.
+	 */
+	private int parseRunLength() {
+		long count = 0;
+		boolean digits = false;
+		while (fill() && buffer[index] >= '0' && buffer[index] <= '9') {
+			count = count * 10 + (buffer[index] - '0');
+			if (count > Integer.MAX_VALUE) {
+				syntaxError("move count is too large");
+			} else if (count > room) {
+				syntaxError("too many events in sequence");
+			}
+			digits = true;
+			advance();
+		}
+		if (!digits) {
+			return 1;
+		} else if (count == 0) {
+			syntaxError("move count must be positive");
+		}
+		return (int) count;
+	}
+
+	/**
+	 * Move past the current character, keeping track of the line and column
+	 * numbers.
+	 */
+	private void advance() {
+		if (buffer[index++] == '\n') {
+			line = line + 1;
+			column = 1;
+			lineStart = index;
+		} else {
+			column = column + 1;
+		}
+	}
+
+	/**
+	 * Print out useful debugging output, and throw a SyntaxError exception. Only
+	 * the part of the current line which is still in the buffer is shown.
 	 *
 	 * @param msg
 	 */
 	private void syntaxError(String msg) {
-		ArrayList<String> lines = new ArrayList<>();
-		int i = 0;
-		int start = 0;
-		int linenum = 0;
-		int col = 0;
-		while (i < text.length()) {
-			if (text.charAt(i) == '\n') {
-				String line = text.substring(start, i);
-				lines.add(line);
-				start = i + 1;
-			}
-			if (i == index) {
-				linenum = lines.size();
-				col = i - start;
-			}
-			i = i + 1;
+		int start = Math.max(lineStart, 0);
+		int end = index;
+		while (end < limit && buffer[end] != '\n') {
+			end = end + 1;
 		}
-		// finally, process last line
-		String line = text.substring(start, i);
-		lines.add(line);
-		System.err.println(msg);
-		System.err.println(lines.get(linenum));
-		for (i = 0; i < col; ++i) {
+		String prefix = lineStart < 0 ? "..." : "";
+		System.err.println(msg + " (line " + line + ", column " + column + ")");
+		System.err.println(prefix + new String(buffer, start, end - start));
+		for (int i = 0; i < prefix.length() + index - start; ++i) {
 			System.err.print(" ");
 		}
 		System.err.println("^\n");
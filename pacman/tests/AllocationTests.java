@@ -0,0 +1,70 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.io.*;
+
+/**
+ * Checks that the hot paths of the simulation do not allocate any objects once
+ * they have warmed up.
+ */
+public class AllocationTests {
+
+	/**
+	 * A board with ghosts in corridors, at intersections and at dead ends. The
+	 * player is walled in, so that the ghosts can never reach it.
+	 */
+	private static final String BOARD = "7|###############|\n" +
+			"6|#.....>....v..#|\n" +
+			"5|#..##..#..##..#|\n" +
+			"4|#..#.......#..#|\n" +
+			"3|#^.#..###..#.<#|\n" +
+			"2|##.#...#.#.# ##|\n" +
+			"1|#..v...#o#....#|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	@Test
+	public void test_ghostMoveDoesNotAllocate() {
+		Game game = new Parser("").parse(15, 8);
+		game.initialiseBoard(BOARD);
+		// Warm up, so that the JIT has compiled the ghost phase
+		for (int i = 0; i != 20000; ++i) {
+			game.moveGhosts();
+		}
+		// Measure several rounds, since a one-off event in the JVM (e.g. the JIT
+		// recompiling a method) can occasionally be charged to this thread. A ghost
+		// move which allocates would do so in every round.
+		long least = Long.MAX_VALUE;
+		for (int round = 0; round != 5; ++round) {
+			long before = allocatedBytes();
+			for (int i = 0; i != 10000; ++i) {
+				game.moveGhosts();
+			}
+			long after = allocatedBytes();
+			// Account for any allocation by the measurement itself
+			long overhead = allocatedBytes() - after;
+			least = Math.min(least, Math.max(0, after - before - overhead));
+		}
+		assertEquals(0, least, "Ghost moves allocated " + least + " bytes");
+	}
+
+	/**
+	 * Get the number of bytes allocated so far by the current thread.
+	 *
+	 * @return Number of bytes allocated.
+	 */
+	private static long allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
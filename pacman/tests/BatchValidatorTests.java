@@ -0,0 +1,89 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.batch.*;
+
+/**
+ * Checks that validating games in parallel gives the same verdicts as
+ * validating them one at a time.
+ */
+public class BatchValidatorTests {
+
+	private static final String BOARD = "7|###############|\n" +
+			"6|#.....>.......#|\n" +
+			"5|#  ##  #  ##  #|\n" +
+			"4|#  #       #  #|\n" +
+			"3|#  #  ###  #  #|\n" +
+			"2|## #   #   # ##|\n" +
+			"1|#      o   <  #|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	private static final String[] SEQUENCES = { "R", "LLLL", "RRRRRR", "UUUULLLL", "X", "!", "RRRRRRRRRRRRRRRR?" };
+
+	/**
+	 * Build a mix of passing and failing jobs. The expected board for each job is
+	 * taken from a single-threaded run, except that every third job is given the
+	 * wrong expectation.
+	 */
+	private static List<Job> jobs(int count) {
+		ArrayList<Job> jobs = new ArrayList<>();
+		for (int i = 0; i != count; ++i) {
+			String sequence = SEQUENCES[i % SEQUENCES.length];
+			Verdict asInvalid = BatchValidator.validate(i, new Job(BOARD, 15, 8, sequence, null));
+			String expected = asInvalid.passed() ? null : finalBoard(sequence);
+			if (i % 3 == 0) {
+				expected = expected == null ? BOARD : null;
+			}
+			jobs.add(new Job(BOARD, 15, 8, sequence, expected));
+		}
+		return jobs;
+	}
+
+	private static String finalBoard(String sequence) {
+		pacman.Game game = new pacman.io.Parser(sequence).parse(15, 8);
+		game.initialiseBoard(BOARD);
+		game.run();
+		return game.toString();
+	}
+
+	@Test
+	public void test_validateAllMatchesSequential() {
+		List<Job> jobs = jobs(500);
+		try (BatchValidator validator = new BatchValidator(4)) {
+			List<Verdict> verdicts = validator.validateAll(jobs);
+			assertEquals(jobs.size(), verdicts.size());
+			for (int i = 0; i != jobs.size(); ++i) {
+				Verdict expected = BatchValidator.validate(i, jobs.get(i));
+				assertEquals(i, verdicts.get(i).getIndex());
+				assertEquals(expected.passed(), verdicts.get(i).passed());
+				assertEquals(i % 3 != 0, verdicts.get(i).passed());
+			}
+		}
+	}
+
+	@Test
+	public void test_validateStreamReportsEveryJob() {
+		List<Job> jobs = jobs(500);
+		boolean[] seen = new boolean[jobs.size()];
+		try (BatchValidator validator = new BatchValidator(4)) {
+			validator.validate(jobs.iterator(), v -> {
+				assertFalse(seen[v.getIndex()]);
+				seen[v.getIndex()] = true;
+				assertEquals(v.getIndex() % 3 != 0, v.passed());
+			});
+		}
+		for (boolean b : seen) {
+			assertTrue(b);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.io.*;
+import pacman.tiles.*;
+
+/**
+ * Checks that boards are loaded correctly by the streaming board loader.
+ */
+public class BoardLoaderTests {
+
+	/**
+	 * A board with more than ten rows, so that the row labels vary in length.
+	 */
+	private static final String BOARD = "11|#####|\n" +
+			"10|#...#|\n" +
+			" 9|#.#.#|\n" +
+			" 8|#.#.#|\n" +
+			" 7|#...#|\n" +
+			" 6|#.#>#|\n" +
+			" 5|#.#.#|\n" +
+			" 4|#...#|\n" +
+			" 3|#*#.#|\n" +
+			" 2|#.#.#|\n" +
+			" 1|#.o.#|\n" +
+			" 0|#####|\n" +
+			"   01234";
+
+	@Test
+	public void test_loadFromBuffer() {
+		Game expected = new Game(5, 12);
+		BoardLoader.load(new StringReader(BOARD), expected);
+		assertTrue(expected.getTile(6 * 5 + 3) instanceof Ghost);
+		assertTrue(expected.getTile(3 * 5 + 1) instanceof Pill);
+		assertTrue(expected.getTile(1 * 5 + 2) instanceof Player);
+		assertTrue(expected.getTile(11 * 5 + 4) instanceof Wall);
+		// Load the same board, with Windows line endings, from a byte buffer
+		String crlf = BOARD.replace("\n", "\r\n");
+		ByteBuffer buffer = ByteBuffer.wrap(crlf.getBytes(StandardCharsets.US_ASCII));
+		Game actual = new Game(5, 12);
+		BoardLoader.load(buffer, actual);
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expected.stateHash(), actual.stateHash());
+	}
+
+	@Test
+	public void test_malformedBoards() {
+		// Row too short
+		assertThrows(IllegalArgumentException.class,
+				() -> BoardLoader.load(new StringReader("1|###|\n0|##|\n"), new Game(3, 2)));
+		// Row too long
+		assertThrows(IllegalArgumentException.class,
+				() -> BoardLoader.load(new StringReader("1|###|\n0|####|\n"), new Game(3, 2)));
+		// Too few rows
+		assertThrows(IllegalArgumentException.class,
+				() -> BoardLoader.load(new StringReader("1|###|\n"), new Game(3, 2)));
+		// Second player, on a board whose row labels have different lengths
+		String twoPlayers = BOARD.replace("#*#", "#o#");
+		assertThrows(IllegalArgumentException.class, () -> new Game(5, 12).initialiseBoard(twoPlayers));
+		assertThrows(IllegalArgumentException.class, () -> BoardTemplate.parse(twoPlayers, 5, 12));
+		assertThrows(IllegalArgumentException.class,
+				() -> BoardTemplate.parse(twoPlayers.replace("\n", "\r\n"), 5, 12));
+		Game expected = new Game(5, 12);
+		expected.initialiseBoard(BOARD);
+		assertEquals(expected.toString(), BoardTemplate.parse(BOARD.replace("\n", "\r\n"), 5, 12).toString());
+		// Invalid character
+		assertThrows(IllegalArgumentException.class,
+				() -> BoardLoader.load(new StringReader("1|###|\n0|#x#|\n"), new Game(3, 2)));
+	}
+}
@@ -0,0 +1,69 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.events.EventBuffer;
+import pacman.io.*;
+
+/**
+ * Checks that games created from a template behave exactly like games created
+ * by parsing the board directly.
+ */
+public class BoardTemplateTests {
+
+	private static final String BOARD = "7|###############|\n" +
+			"6|#....*>.......#|\n" +
+			"5|#  ##  #  ##  #|\n" +
+			"4|#  #  ^    #  #|\n" +
+			"3|#  #  ###  #  #|\n" +
+			"2|## #   #   # ##|\n" +
+			"1|#      o   <  #|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	@Test
+	public void test_templateGamesAreIndependent() {
+		BoardTemplate template = BoardTemplate.parse(BOARD, 15, 8);
+		String[] sequences = { "UUUUURRRRRRR", "LLLLLL", "RRUULL", "" };
+		for (String sequence : sequences) {
+			Game expected = new Parser(sequence).parse(15, 8);
+			expected.initialiseBoard(BOARD);
+			Game actual = template.newGame();
+			assertEquals(replay(expected, null), replay(actual, new Parser(sequence).parseEvents()));
+		}
+		// Running games must not have changed the template
+		Game fresh = new Game(15, 8);
+		fresh.initialiseBoard(BOARD);
+		assertEquals(fresh.toString(), template.toString());
+	}
+
+	/**
+	 * Run a game, returning either its final board or the error it produced.
+	 */
+	private static String replay(Game game, EventBuffer events) {
+		try {
+			if (events == null) {
+				game.run();
+			} else {
+				game.run(events);
+			}
+			return game.toString();
+		} catch (GameError e) {
+			return "error: " + e.getMessage() + "\n" + game.toString();
+		}
+	}
+
+	@Test
+	public void test_templateRejectsMalformedBoard() {
+		assertThrows(IllegalArgumentException.class, () -> BoardTemplate.parse(BOARD, 15, 9));
+		assertThrows(IllegalArgumentException.class, () -> BoardTemplate.parse(BOARD, 16, 8));
+		assertThrows(IllegalArgumentException.class, () -> BoardTemplate.parse(BOARD.replace('#', 'o'), 15, 8));
+	}
+}
@@ -0,0 +1,91 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Checkpoint;
+import pacman.Game;
+import pacman.events.EventBuffer;
+
+/**
+ * Checks that a game restored from a checkpoint continues exactly as the
+ * original game did, including the state which is not visible on the board.
+ */
+public class CheckpointTests {
+
+	@Test
+	public void test_restoreRecordedCheckpoints() {
+		EventBuffer events = Fixtures.events();
+		Game game = Fixtures.newGame();
+		game.setCheckpointPolicy(3, 4);
+		game.run(events);
+		String expected = game.toString();
+		List<Checkpoint> checkpoints = game.getCheckpoints();
+		assertEquals(events.size() / 3 + 1, checkpoints.size());
+		assertTrue(checkpoints.get(0).isKeyframe());
+		assertFalse(checkpoints.get(1).isKeyframe());
+		// Resume from every checkpoint, and check the game ends the same way
+		for (Checkpoint cp : checkpoints) {
+			Game other = Fixtures.newGame();
+			other.restore(cp);
+			assertEquals(cp.getTick(), other.getEventsApplied());
+			other.run(events, cp.getTick(), events.size());
+			assertEquals(expected, other.toString());
+		}
+	}
+
+	@Test
+	public void test_checkpointRestoresHiddenState() {
+		EventBuffer events = Fixtures.events();
+		Game game = Fixtures.newGame();
+		// The player has eaten the pill, and a ghost is now on a dot
+		game.run(events, 0, 7);
+		Checkpoint cp = game.checkpoint();
+		game.run(events, 7, events.size());
+		String expected = game.toString();
+		// Rewind the same game, and replay the remaining events
+		game.restore(cp);
+		game.run(events, 7, events.size());
+		assertEquals(expected, game.toString());
+	}
+
+	@Test
+	public void test_restoreClearsInvalidReason() {
+		Game game = Fixtures.newGame();
+		Checkpoint cp = game.checkpoint();
+		// The game cannot be won whilst there are dots left
+		assertEquals(Game.Outcome.INVALID, game.step(EventBuffer.WON));
+		assertNotNull(game.getInvalidReason());
+		game.restore(cp);
+		assertNull(game.getInvalidReason());
+	}
+
+	@Test
+	public void test_restoreKeepsOneCheckpointPerTick() {
+		EventBuffer events = Fixtures.events();
+		Game game = Fixtures.newGame();
+		game.setCheckpointPolicy(3, 4);
+		game.run(events, 0, 9);
+		// Rewind to a recorded checkpoint, and then to the same tick again
+		Checkpoint cp = game.getCheckpoints().get(2);
+		game.restore(cp);
+		game.restore(game.getCheckpoints().get(2));
+		List<Checkpoint> checkpoints = game.getCheckpoints();
+		assertEquals(3, checkpoints.size());
+		assertEquals(cp.getTick(), checkpoints.get(2).getTick());
+		assertTrue(checkpoints.get(2).isKeyframe());
+		// Recording carries on as before
+		game.run(events, cp.getTick(), events.size());
+		checkpoints = game.getCheckpoints();
+		assertEquals(events.size() / 3 + 1, checkpoints.size());
+		for (int i = 0; i != checkpoints.size(); ++i) {
+			assertEquals(i * 3, checkpoints.get(i).getTick());
+		}
+	}
+}
@@ -0,0 +1,174 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pacman.batch.*;
+import pacman.io.*;
+
+/**
+ * Checks that games survive a round trip through a corpus file, and that boards
+ * are stored only once.
+ */
+public class CorpusFileTests {
+
+	private static final String[] BOARDS = { "2|#####|\n" +
+			"1|#o..#|\n" +
+			"0|#####|\n" +
+			"  01234", "3|#####|\n" +
+			"2|#.>.#|\n" +
+			"1|#.o.#|\n" +
+			"0|#####|\n" +
+			"  01234" };
+
+	private static final String[] SEQUENCES = { "R", "RL", "X", "", "UD" };
+
+	@TempDir
+	Path dir;
+
+	private static List<Job> jobs(int from, int count) {
+		ArrayList<Job> jobs = new ArrayList<>();
+		for (int i = from; i != from + count; ++i) {
+			String board = BOARDS[i % BOARDS.length];
+			int height = board.split("\n").length - 1;
+			// Half the games expect the starting board, the others to be invalid
+			jobs.add(new Job(board, 5, height, SEQUENCES[i % SEQUENCES.length] + i, i % 2 == 0 ? board : null));
+		}
+		return jobs;
+	}
+
+	@Test
+	public void test_roundTrip() throws IOException {
+		Path path = dir.resolve("games.pacc");
+		List<Job> jobs = jobs(0, 1000);
+		try (CorpusFile.Writer writer = CorpusFile.append(path)) {
+			for (int i = 0; i != 500; ++i) {
+				assertEquals(i, writer.add(jobs.get(i)));
+			}
+		}
+		// Reopen the file to add the remaining games
+		try (CorpusFile.Writer writer = CorpusFile.append(path)) {
+			for (int i = 500; i != 1000; ++i) {
+				assertEquals(i, writer.add(jobs.get(i)));
+			}
+		}
+		CorpusFile corpus = CorpusFile.open(path);
+		assertEquals(1000, corpus.size());
+		assertEquals(BOARDS.length, corpus.getBoardCount());
+		// The boards are stored once, rather than once per game
+		assertTrue(Files.size(path) < 1000 * BOARDS[0].length());
+		// Fetch games out of order
+		for (int i = 999; i >= 0; i -= 7) {
+			assertSameJob(jobs.get(i), corpus.get(i));
+		}
+		int i = 0;
+		for (Job job : corpus) {
+			assertSameJob(jobs.get(i++), job);
+		}
+		assertEquals(1000, i);
+	}
+
+	@Test
+	public void test_abandonedWriter() throws IOException {
+		Path path = dir.resolve("games.pacc");
+		List<Job> jobs = jobs(0, 5000);
+		try (CorpusFile.Writer writer = CorpusFile.append(path)) {
+			for (int i = 0; i != 100; ++i) {
+				writer.add(jobs.get(i));
+			}
+		}
+		long size = Files.size(path);
+		// Add enough games that some are written out, but never close the writer
+		CorpusFile.Writer abandoned = CorpusFile.append(path);
+		for (int i = 100; i != 5000; ++i) {
+			abandoned.add(jobs.get(i));
+		}
+		assertTrue(Files.size(path) > size);
+		CorpusFile corpus = CorpusFile.open(path);
+		assertEquals(100, corpus.size());
+		for (int i = 0; i != 100; ++i) {
+			assertSameJob(jobs.get(i), corpus.get(i));
+		}
+		// Games can still be added after those which were not lost
+		try (CorpusFile.Writer writer = CorpusFile.append(path)) {
+			assertEquals(100, writer.add(jobs.get(100)));
+		}
+		corpus = CorpusFile.open(path);
+		assertEquals(101, corpus.size());
+		assertSameJob(jobs.get(100), corpus.get(100));
+		assertEquals(BOARDS.length, corpus.getBoardCount());
+	}
+
+	@Test
+	public void test_appendOnlyWritesNewOffsets() throws IOException {
+		List<Job> jobs = jobs(0, 1000);
+		Path once = dir.resolve("once.pacc");
+		try (CorpusFile.Writer writer = CorpusFile.append(once)) {
+			for (Job job : jobs) {
+				writer.add(job);
+			}
+		}
+		Path often = dir.resolve("often.pacc");
+		for (int i = 0; i != 1000; i += 50) {
+			try (CorpusFile.Writer writer = CorpusFile.append(often)) {
+				for (int j = i; j != i + 50; ++j) {
+					assertEquals(j, writer.add(jobs.get(j)));
+				}
+			}
+		}
+		// A writer which adds nothing writes nothing
+		CorpusFile.append(often).close();
+		// Each writer adds one footer, but never repeats an earlier offset
+		assertEquals(Files.size(once) + 19 * 28, Files.size(often));
+		CorpusFile corpus = CorpusFile.open(often);
+		assertEquals(1000, corpus.size());
+		assertEquals(BOARDS.length, corpus.getBoardCount());
+		for (int i = 999; i >= 0; i -= 3) {
+			assertSameJob(jobs.get(i), corpus.get(i));
+		}
+	}
+
+	@Test
+	public void test_corruptHeader() throws IOException {
+		Path path = dir.resolve("games.pacc");
+		try (CorpusFile.Writer writer = CorpusFile.append(path)) {
+			for (Job job : jobs(0, 10)) {
+				writer.add(job);
+			}
+		}
+		byte[] bytes = Files.readAllBytes(path);
+		// The header no longer points at the last footer
+		ByteBuffer.wrap(bytes).putLong(8, bytes.length / 2);
+		Files.write(path, bytes);
+		assertThrows(IOException.class, () -> CorpusFile.open(path));
+		assertThrows(IOException.class, () -> CorpusFile.append(path));
+	}
+
+	@Test
+	public void test_notACorpus() throws IOException {
+		Path path = dir.resolve("junk.pacc");
+		Files.write(path, new byte[64]);
+		assertThrows(IOException.class, () -> CorpusFile.open(path));
+		assertThrows(IOException.class, () -> CorpusFile.append(path));
+	}
+
+	private static void assertSameJob(Job expected, Job actual) {
+		assertEquals(expected.getBoard(), actual.getBoard());
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getSequence(), actual.getSequence());
+		assertEquals(expected.getExpectedBoard(), actual.getExpectedBoard());
+	}
+}
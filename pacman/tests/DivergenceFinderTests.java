@@ -0,0 +1,68 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.debug.*;
+import pacman.events.EventBuffer;
+import pacman.io.*;
+
+/**
+ * Checks that the first divergence between a replay and a reference is located
+ * correctly.
+ */
+public class DivergenceFinderTests {
+
+	/**
+	 * The shared sequence, with a move changed part way through.
+	 */
+	private static final String DISPUTED = "LLLLLLRRRLRRRRUUU";
+
+	@Test
+	public void test_findWithHashes() {
+		BoardTemplate template = Fixtures.newTemplate();
+		ReferenceStates oracle = new ReferenceStates();
+		Game game = template.newGame();
+		oracle.addHash(0, game.stateHash());
+		EventBuffer reference = Fixtures.events();
+		for (int i = 0; i != reference.size(); ++i) {
+			game.step(reference.get(i));
+			oracle.addHash(i + 1, game.stateHash());
+		}
+		EventBuffer disputed = new Parser(DISPUTED).parseEvents();
+		Divergence d = new DivergenceFinder(template, disputed, 4).find(oracle);
+		assertNotNull(d);
+		assertEquals(9, d.getEvent());
+		assertEquals(9, d.getLastAgreed());
+		assertNull(d.getReason());
+		assertNotEquals(d.getBefore(), d.getAfter());
+		// The undisputed sequence does not diverge
+		assertNull(new DivergenceFinder(template, reference, 4).find(oracle));
+	}
+
+	@Test
+	public void test_findWithSparseBoards() {
+		BoardTemplate template = Fixtures.newTemplate();
+		ReferenceStates oracle = new ReferenceStates();
+		Game game = template.newGame();
+		EventBuffer reference = Fixtures.events();
+		for (int i = 0; i != reference.size(); ++i) {
+			game.step(reference.get(i));
+			if ((i + 1) % 5 == 0) {
+				oracle.addBoard(i + 1, game.toString());
+			}
+		}
+		EventBuffer disputed = new Parser(DISPUTED).parseEvents();
+		Divergence d = new DivergenceFinder(template, disputed, 3).find(oracle);
+		assertNotNull(d);
+		// Only the ticks at multiples of five are checked
+		assertEquals(9, d.getEvent());
+		assertEquals(5, d.getLastAgreed());
+	}
+}
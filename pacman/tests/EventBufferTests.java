@@ -0,0 +1,129 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.events.EventBuffer;
+
+/**
+ * Checks that an <code>EventBuffer</code> holds the events appended to it,
+ * both as single events and as runs.
+ */
+public class EventBufferTests {
+	private static final byte UP = 0;
+	private static final byte DOWN = 1;
+	private static final byte LEFT = 2;
+
+	@Test
+	public void test_singleEvents() {
+		EventBuffer buffer = new EventBuffer();
+		assertEquals(0, buffer.size());
+		// Enough to grow the buffer, with adjacent events the same
+		for (int i = 0; i != 40; ++i) {
+			buffer.append(i % 4 < 2 ? UP : DOWN);
+		}
+		assertEquals(40, buffer.size());
+		// Each single event is its own run, even when adjacent ones match
+		assertEquals(40, buffer.runCount());
+		for (int i = 0; i != 40; ++i) {
+			assertEquals(i % 4 < 2 ? UP : DOWN, buffer.get(i));
+			assertEquals(i, buffer.runOf(i));
+			assertEquals(i + 1, buffer.runEnd(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(40));
+		assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(-1));
+	}
+
+	@Test
+	public void test_runsOfOne() {
+		// A run of one event is the same as appending it
+		EventBuffer buffer = new EventBuffer();
+		buffer.append(UP, 1);
+		buffer.append(DOWN, 1);
+		assertEquals(2, buffer.size());
+		assertEquals(2, buffer.runCount());
+		assertEquals(UP, buffer.get(0));
+		assertEquals(DOWN, buffer.get(1));
+	}
+
+	@Test
+	public void test_adjacentRunsMerge() {
+		EventBuffer buffer = new EventBuffer();
+		buffer.append(LEFT, 3);
+		buffer.append(LEFT, 2);
+		buffer.append(LEFT);
+		assertEquals(6, buffer.size());
+		assertEquals(1, buffer.runCount());
+		assertEquals(6, buffer.runEnd(0));
+		buffer.append(UP, 2);
+		assertEquals(2, buffer.runCount());
+		assertEquals(8, buffer.runEnd(1));
+	}
+
+	@Test
+	public void test_switchToRuns() {
+		EventBuffer buffer = new EventBuffer();
+		buffer.append(UP);
+		buffer.append(DOWN);
+		buffer.append(DOWN);
+		// The first run of more than one event switches how the runs are held
+		buffer.append(LEFT, 1000);
+		buffer.append(EventBuffer.WON);
+		assertEquals(1004, buffer.size());
+		assertEquals(5, buffer.runCount());
+		byte[] expected = { UP, DOWN, DOWN, LEFT, EventBuffer.WON };
+		int[] ends = { 1, 2, 3, 1003, 1004 };
+		for (int run = 0; run != expected.length; ++run) {
+			assertEquals(expected[run], buffer.codes()[run]);
+			assertEquals(ends[run], buffer.runEnd(run));
+		}
+		assertEquals(UP, buffer.get(0));
+		assertEquals(DOWN, buffer.get(1));
+		assertEquals(DOWN, buffer.get(2));
+		assertEquals(LEFT, buffer.get(3));
+		assertEquals(LEFT, buffer.get(1002));
+		assertEquals(EventBuffer.WON, buffer.get(1003));
+		assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1004));
+	}
+
+	@Test
+	public void test_runOfBoundaries() {
+		// Many runs of different lengths, so the search takes several steps
+		EventBuffer buffer = new EventBuffer();
+		int[] starts = new int[100];
+		for (int run = 0; run != 100; ++run) {
+			starts[run] = buffer.size();
+			buffer.append((byte) (run % 3), run + 2);
+		}
+		assertEquals(100, buffer.runCount());
+		for (int run = 0; run != 100; ++run) {
+			int end = buffer.runEnd(run);
+			assertEquals(starts[run] + run + 2, end);
+			// The first and last events of each run
+			assertEquals(run, buffer.runOf(starts[run]));
+			assertEquals(run, buffer.runOf(end - 1));
+			assertEquals(run % 3, buffer.get(starts[run]));
+			assertEquals(run % 3, buffer.get(end - 1));
+		}
+	}
+
+	@Test
+	public void test_invalidRuns() {
+		EventBuffer buffer = new EventBuffer();
+		assertThrows(IllegalArgumentException.class, () -> buffer.append(UP, 0));
+		assertThrows(IllegalArgumentException.class, () -> buffer.append(UP, -1));
+		buffer.append(UP, 2);
+		// The total number of events must fit in an int
+		assertThrows(IllegalArgumentException.class, () -> buffer.append(DOWN, Integer.MAX_VALUE));
+		assertEquals(2, buffer.size());
+		assertEquals(1, buffer.runCount());
+		buffer.append(DOWN, Integer.MAX_VALUE - 2);
+		assertEquals(Integer.MAX_VALUE, buffer.size());
+		assertEquals(DOWN, buffer.get(Integer.MAX_VALUE - 1));
+		assertThrows(IllegalArgumentException.class, () -> buffer.append(DOWN, 1));
+	}
+}
@@ -0,0 +1,60 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import pacman.BoardTemplate;
+import pacman.Game;
+import pacman.events.EventBuffer;
+import pacman.io.Parser;
+
+/**
+ * A board and a sequence of moves shared by the tests which replay, record or
+ * rewind a game. By the seventh move the player has eaten the pill and the
+ * ghost is on a dot, so the state which is not visible on the board changes,
+ * but the game does not end.
+ */
+final class Fixtures {
+
+	static final int WIDTH = 15;
+
+	static final int HEIGHT = 8;
+
+	static final String BOARD = "7|###############|\n" +
+			"6|#.....>.......#|\n" +
+			"5|#..##..#..##..#|\n" +
+			"4|#..#.......#..#|\n" +
+			"3|#..#..###..#..#|\n" +
+			"2|##.#...#...#.##|\n" +
+			"1|#*.....o......#|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	static final String SEQUENCE = "LLLLLLRRRRRRRRUUU";
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Create a new game holding the shared board.
+	 */
+	static Game newGame() {
+		Game game = new Game(WIDTH, HEIGHT);
+		game.initialiseBoard(BOARD);
+		return game;
+	}
+
+	/**
+	 * Create a template for the shared board.
+	 */
+	static BoardTemplate newTemplate() {
+		return BoardTemplate.parse(BOARD, WIDTH, HEIGHT);
+	}
+
+	/**
+	 * Parse the shared sequence of moves.
+	 */
+	static EventBuffer events() {
+		return new Parser(SEQUENCE).parseEvents();
+	}
+}
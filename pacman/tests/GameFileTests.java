@@ -0,0 +1,133 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pacman.Game;
+import pacman.events.EventBuffer;
+import pacman.io.*;
+
+/**
+ * Checks that games survive a round trip through the binary game file format.
+ */
+public class GameFileTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void test_roundTrip() throws IOException {
+		Game game = Fixtures.newGame();
+		EventBuffer events = Fixtures.events();
+		Path path = dir.resolve("game.pacb");
+		GameFile.write(game, events, path);
+		// The board takes a quarter of a byte per cell, and each move likewise
+		assertTrue(Files.size(path) < (Fixtures.BOARD.length() + Fixtures.SEQUENCE.length()) / 2);
+		GameFile file = GameFile.open(path);
+		assertEquals(Fixtures.WIDTH, file.getWidth());
+		assertEquals(Fixtures.HEIGHT, file.getHeight());
+		assertEquals(events.size(), file.getEventCount());
+		Game loaded = file.newGame();
+		assertEquals(game.toString(), loaded.toString());
+		assertEquals(game.stateHash(), loaded.stateHash());
+		// Run both, one straight from the file
+		game.run(events);
+		file.run(loaded);
+		assertEquals(game.toString(), loaded.toString());
+		// The hidden state of the player and ghosts is also kept
+		GameFile.write(game, new EventBuffer(), path);
+		assertEquals(game.stateHash(), GameFile.open(path).newGame().stateHash());
+	}
+
+	@Test
+	public void test_gameOverEvents() throws IOException {
+		String board = "2|#####|\n" +
+				"1|#o..#|\n" +
+				"0|#####|\n" +
+				"  01234";
+		Game game = new Game(5, 3);
+		game.initialiseBoard(board);
+		EventBuffer events = new Parser("RR!!").parseEvents();
+		Path path = dir.resolve("won.pacb");
+		GameFile.write(game, events, path);
+		GameFile file = GameFile.open(path);
+		assertEquals(EventBuffer.WON, file.getEvent(2));
+		assertEquals(EventBuffer.WON, file.getEvent(3));
+		EventBuffer loaded = file.getEvents();
+		for (int i = 0; i != events.size(); ++i) {
+			assertEquals(events.get(i), loaded.get(i));
+		}
+		file.run(file.newGame());
+		// A lost game is invalid here
+		GameFile.write(game, new Parser("RR?").parseEvents(), path);
+		GameFile lost = GameFile.open(path);
+		assertThrows(GameError.class, () -> lost.run(lost.newGame()));
+	}
+
+	@Test
+	public void test_notGameFile() throws IOException {
+		Path path = dir.resolve("board.txt");
+		Files.writeString(path, Fixtures.BOARD);
+		assertThrows(IOException.class, () -> GameFile.open(path));
+	}
+
+	@Test
+	public void test_corruptHeader() throws IOException {
+		Path path = dir.resolve("game.pacb");
+		GameFile.write(Fixtures.newGame(), Fixtures.events(), path);
+		byte[] bytes = Files.readAllBytes(path);
+		// More special tiles than cells
+		assertThrows(IOException.class, () -> GameFile.open(patch(path, bytes, 20, Fixtures.WIDTH * Fixtures.HEIGHT + 1)));
+		// So many escapes that the offset of the events would overflow an int
+		assertThrows(IOException.class, () -> GameFile.open(patch(path, bytes, 28, 0x7FFFFFFF)));
+		// So many cells that the offset of the special tiles would overflow an int
+		byte[] wide = patch(bytes, 8, 0x7FFFFFFF);
+		assertThrows(IOException.class, () -> GameFile.open(patch(path, wide, 12, 0x7FFFFFFF)));
+		assertThrows(IOException.class, () -> GameFile.open(patch(path, bytes, 8, 0x7FFFFFFF)));
+	}
+
+	@Test
+	public void test_specialCountMismatch() throws IOException {
+		Path path = dir.resolve("game.pacb");
+		GameFile.write(Fixtures.newGame(), Fixtures.events(), path);
+		byte[] bytes = Files.readAllBytes(path);
+		// The grid has three special tiles (the pill, the player and the ghost), but
+		// the header only expects two
+		GameFile extra = GameFile.open(patch(path, bytes, 20, 2));
+		GameError e = assertThrows(GameError.class, () -> extra.newGame());
+		assertTrue(e.getMessage().contains("more special tiles"));
+		// The player's cell (7,1) is air in the grid, but its special tile remains
+		byte[] noPlayer = bytes.clone();
+		final int cell = Fixtures.WIDTH + 7;
+		noPlayer[32 + cell / 4] &= ~(3 << (cell % 4) * 2);
+		Path other = dir.resolve("other.pacb");
+		Files.write(other, noPlayer);
+		GameFile missing = GameFile.open(other);
+		e = assertThrows(GameError.class, () -> missing.newGame());
+		assertTrue(e.getMessage().contains("fewer special tiles"));
+	}
+
+	/**
+	 * Write a copy of a file's bytes, with the integer at a given offset replaced.
+	 */
+	private static Path patch(Path path, byte[] bytes, int offset, int value) throws IOException {
+		Files.write(path, patch(bytes, offset, value));
+		return path;
+	}
+
+	private static byte[] patch(byte[] bytes, int offset, int value) {
+		byte[] copy = bytes.clone();
+		ByteBuffer.wrap(copy).putInt(offset, value);
+		return copy;
+	}
+}
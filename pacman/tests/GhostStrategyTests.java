@@ -0,0 +1,108 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.FlowFieldStrategy;
+import pacman.Game;
+import pacman.TickContext;
+import pacman.events.PlayerMove.Direction;
+import pacman.tiles.Ghost;
+
+/**
+ * Checks the strategies which ghosts can use at junctions.
+ */
+public class GhostStrategyTests {
+
+	/**
+	 * The ghost is at a junction, where the player is closer in a straight line
+	 * to the left, but is only reachable through the maze to the right.
+	 */
+	private static final String BOARD = "5|#########|\n" +
+			"4|#o.....##|\n" +
+			"3|######.##|\n" +
+			"2|#...v...#|\n" +
+			"1|#########|\n" +
+			"0|#########|\n" +
+			"  012345678";
+
+	@Test
+	public void test_greedyFollowsStraightLine() {
+		Game game = new Game(9, 6);
+		game.initialiseBoard(BOARD);
+		game.moveGhosts();
+		assertEquals("2|#..< ...#|", row(game, 2));
+	}
+
+	@Test
+	public void test_flowFieldFollowsMaze() {
+		Game game = new Game(9, 6);
+		game.initialiseBoard(BOARD);
+		FlowFieldStrategy strategy = new FlowFieldStrategy();
+		game.setGhostStrategy(strategy);
+		game.moveGhosts();
+		assertEquals("2|#... >..#|", row(game, 2));
+		assertEquals(0, strategy.getDistance(4 * 9 + 1));
+		assertEquals(8, strategy.getDistance(2 * 9 + 5));
+		assertEquals(Integer.MAX_VALUE, strategy.getDistance(0));
+	}
+
+	@Test
+	public void test_preparedOncePerTick() {
+		Game game = new Game(9, 6);
+		game.initialiseBoard("5|#########|\n" +
+				"4|#o...<.##|\n" +
+				"3|######.##|\n" +
+				"2|#...v..>#|\n" +
+				"1|#########|\n" +
+				"0|#########|\n" +
+				"  012345678");
+		CountingStrategy strategy = new CountingStrategy();
+		game.setGhostStrategy(strategy);
+		// Moving the ghosts one at a time shares the search made for the first
+		int[] ghosts = { 2 * 9 + 4, 2 * 9 + 7, 4 * 9 + 5 };
+		for (int cell : ghosts) {
+			assertTrue(game.getTile(cell) instanceof Ghost);
+			game.moveGhost(cell);
+		}
+		assertEquals(1, strategy.prepared);
+		// Each step is a tick of its own, and so is moving the ghosts after it
+		assertEquals(Game.Outcome.ONGOING, game.step(Direction.RIGHT));
+		assertEquals(2, strategy.prepared);
+		game.moveGhosts();
+		assertEquals(3, strategy.prepared);
+	}
+
+	@Test
+	public void test_notPreparedWithoutGhosts() {
+		Game game = new Game(9, 6);
+		game.initialiseBoard(BOARD.replace('v', '.'));
+		CountingStrategy strategy = new CountingStrategy();
+		game.setGhostStrategy(strategy);
+		for (int i = 0; i != 3; ++i) {
+			assertEquals(Game.Outcome.ONGOING, game.step(Direction.RIGHT));
+		}
+		assertEquals(0, strategy.prepared);
+	}
+
+	/**
+	 * Counts the number of times the flow field is prepared.
+	 */
+	private static final class CountingStrategy extends FlowFieldStrategy {
+		private int prepared;
+
+		@Override
+		public void prepare(Game game, TickContext tick) {
+			prepared = prepared + 1;
+			super.prepare(game, tick);
+		}
+	}
+
+	private static String row(Game game, int y) {
+		return game.toString().split("\n")[game.getHeight() - 1 - y];
+	}
+}
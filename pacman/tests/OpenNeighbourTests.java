@@ -0,0 +1,54 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.events.PlayerMove.Direction;
+import pacman.tiles.*;
+
+/**
+ * Checks that the precomputed open neighbours of each cell are kept up-to-date
+ * as walls are placed and removed.
+ */
+public class OpenNeighbourTests {
+
+	private static final String BOARD = "4|#####|\n" +
+			"3|#.#.#|\n" +
+			"2|#...#|\n" +
+			"1|#o# .|\n" +
+			"0|#####|\n" +
+			"  01234";
+
+	@Test
+	public void test_openNeighboursMatchBoard() {
+		Game game = new Game(5, 5);
+		game.initialiseBoard(BOARD);
+		checkOpenNeighbours(game);
+		// Remove a wall, and then add one somewhere else
+		game.setTile(2 * 5 + 2, Wall.WALL);
+		game.setTile(1 * 5 + 2, Air.AIR);
+		checkOpenNeighbours(game);
+		// Restore the original board
+		Game other = new Game(5, 5);
+		other.initialiseBoard(BOARD);
+		game.restore(other.checkpoint());
+		checkOpenNeighbours(game);
+	}
+
+	private static void checkOpenNeighbours(Game game) {
+		for (int cell = 0; cell != game.getWidth() * game.getHeight(); ++cell) {
+			int expected = 0;
+			for (Direction d : Direction.values()) {
+				if (!game.isObstruction(game.neighbour(cell, d))) {
+					expected |= 1 << d.ordinal();
+				}
+			}
+			assertEquals(expected, game.getOpenNeighbours(cell), "cell " + cell);
+		}
+	}
+}
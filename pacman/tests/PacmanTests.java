@@ -2728,6 +2728,135 @@ public class PacmanTests {
 		checkValid(sequence, startingBoard, finalBoard);
 	}
 
+	/**
+	 * ============================================================
+	 * Part 8 --- Malformed Boards
+	 * ============================================================
+	 */
+
+	@Test
+	public void test_101() {
+		// Check a board with a second player is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  #|\n" +
+				"4|#  #   o   #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_102() {
+		// Check a board with a row that is too long is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  # |\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_103() {
+		// Check a board with a row that is too short is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  |\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_104() {
+		// Check a board with characters after the end of a row is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  #|\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|3\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_105() {
+		// Check a board with too few rows is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  #|\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_106() {
+		// Check a board with an unknown character is rejected
+		String startingBoard = "7|###############|\n" +
+				"6|#.     x      #|\n" +
+				"5|#  ##  #  ##  #|\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#      o      #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkMalformed(startingBoard);
+	}
+
+	@Test
+	public void test_107() {
+		// Check a board with Windows line endings is accepted
+		String startingBoard = "7|###############|\r\n" +
+				"6|#.            #|\r\n" +
+				"5|#  ##  #  ##  #|\r\n" +
+				"4|#  #       #  #|\r\n" +
+				"3|#  #  ###  #  #|\r\n" +
+				"2|## #   #   # ##|\r\n" +
+				"1|#      o      #|\r\n" +
+				"0|###############|\r\n" +
+				"  012345678901234";
+
+		String sequence = "R";
+
+		String finalBoard = "7|###############|\n" +
+				"6|#.            #|\n" +
+				"5|#  ##  #  ##  #|\n" +
+				"4|#  #       #  #|\n" +
+				"3|#  #  ###  #  #|\n" +
+				"2|## #   #   # ##|\n" +
+				"1|#       o     #|\n" +
+				"0|###############|\n" +
+				"  012345678901234";
+
+		checkValid(sequence, startingBoard, finalBoard);
+	}
+
 	/**
 	 * ============================================================
 	 * Helper Functions
@@ -2797,6 +2926,23 @@ public class PacmanTests {
 		}
 	}
 
+	/**
+	 * This method checks that the given starting board is rejected when it is
+	 * loaded through <code>Game.initialiseBoard()</code>.
+	 *
+	 * @param startingBoard
+	 */
+	public void checkMalformed(String startingBoard) {
+		System.out
+				.println("===================================================");
+		System.out.println("TEST " + determineTestNumber());
+		System.out
+				.println("===================================================");
+		// Boards set to 15x8 dimension
+		Game game = new Game(15, 8);
+		assertThrows(IllegalArgumentException.class, () -> game.initialiseBoard(startingBoard));
+	}
+
 	/**
 	 * Determine the number of the test being executed based on its method name.
 	 *
@@ -0,0 +1,203 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Checkpoint;
+import pacman.Game;
+import pacman.TraceRecorder;
+import pacman.events.PlayerMove.Direction;
+
+/**
+ * Checks that the two-phase (parallel) ghost update produces exactly the same
+ * result as the sequential update.
+ */
+public class ParallelGhostTests {
+
+	@Test
+	public void test_twoPhaseMatchesSequential() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (long seed = 0; seed != 4; ++seed) {
+				checkEquivalent(pool, 120, 90, seed);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_moreRegionsThanRows() {
+		// Ghosts wrap around the top and bottom of the board, which is also where
+		// the first and last regions meet.
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			checkEquivalent(pool, 300, 5, 0);
+			checkEquivalent(pool, 7, 33, 1);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_regionLocalCommits() {
+		// No ghost is enclosed, so the moves within each region are carried out in
+		// parallel, and only those which cross a border (or depend on one which
+		// does) are deferred.
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (long seed = 0; seed != 4; ++seed) {
+				checkEquivalent(pool, generateSafeBoard(new Random(seed), 120, 90), 120, 90);
+			}
+			// One row per region, so ghosts move into the next region from every row
+			// (including between the first and last)
+			checkEquivalent(pool, generateSafeBoard(new Random(4), 1024, 6), 1024, 6);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_regionsOfSeveralStripes() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			checkEquivalent(pool, generateSafeBoard(new Random(5), 120, 90), 120, 90);
+			checkEquivalent(pool, generateSafeBoard(new Random(6), 200, 257), 200, 257);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_stepRecordsSameCheckpointsAndTrace() throws IOException {
+		// Enough ghosts for step() to use the pool
+		final int width = 150;
+		final int height = 90;
+		String board = generateSafeBoard(new Random(7), width, height);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ByteArrayOutputStream sequentialTrace = new ByteArrayOutputStream();
+			ByteArrayOutputStream parallelTrace = new ByteArrayOutputStream();
+			Game sequential = new Game(width, height);
+			sequential.initialiseBoard(board);
+			Game parallel = new Game(width, height);
+			parallel.initialiseBoard(board);
+			parallel.setGhostPool(pool);
+			try (TraceRecorder r1 = new TraceRecorder(sequentialTrace);
+					TraceRecorder r2 = new TraceRecorder(parallelTrace)) {
+				sequential.setCheckpointPolicy(2, 3);
+				sequential.setTraceRecorder(r1);
+				parallel.setCheckpointPolicy(2, 3);
+				parallel.setTraceRecorder(r2);
+				for (int i = 0; i != 20; ++i) {
+					// The player walks back and forth along its corridor
+					Direction direction = i % 2 == 0 ? Direction.LEFT : Direction.RIGHT;
+					assertEquals(sequential.step(direction), parallel.step(direction), "step " + i);
+					assertEquals(sequential.stateHash(), parallel.stateHash(), "step " + i);
+				}
+			}
+			assertArrayEquals(sequentialTrace.toByteArray(), parallelTrace.toByteArray());
+			// Each checkpoint holds the cells changed since the one before
+			List<Checkpoint> expected = sequential.getCheckpoints();
+			List<Checkpoint> actual = parallel.getCheckpoints();
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i != expected.size(); ++i) {
+				sequential.restore(expected.get(i));
+				parallel.restore(actual.get(i));
+				assertEquals(sequential.toString(), parallel.toString(), "checkpoint " + i);
+				assertEquals(sequential.stateHash(), parallel.stateHash(), "checkpoint " + i);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void checkEquivalent(ForkJoinPool pool, int width, int height, long seed) {
+		checkEquivalent(pool, generateBoard(new Random(seed), width, height), width, height);
+	}
+
+	private static void checkEquivalent(ForkJoinPool pool, String board, int width, int height) {
+		Game sequential = new Game(width, height);
+		sequential.initialiseBoard(board);
+		Game parallel = new Game(width, height);
+		parallel.initialiseBoard(board);
+		for (int i = 0; i != 50; ++i) {
+			sequential.moveGhosts();
+			parallel.moveGhosts(pool);
+			assertEquals(sequential.stateHash(), parallel.stateHash(), "tick " + i);
+		}
+		assertEquals(sequential.toString(), parallel.toString());
+	}
+
+	/**
+	 * Generate a random board, which is densely packed with ghosts so that they
+	 * often collide with each other, as well as with the player.
+	 */
+	private static String generateBoard(Random random, int width, int height) {
+		final String ghosts = "^v<>";
+		StringBuilder sb = new StringBuilder();
+		for (int y = height - 1; y >= 0; --y) {
+			sb.append(y % 10).append('|');
+			for (int x = 0; x != width; ++x) {
+				int r = random.nextInt(10);
+				if (x == width / 2 && y == height / 2) {
+					sb.append('o');
+				} else if (x == 0 || x == width - 1 || r < 2) {
+					sb.append('#');
+				} else if (r < 6) {
+					sb.append(ghosts.charAt(random.nextInt(4)));
+				} else if (r < 8) {
+					sb.append('.');
+				} else {
+					sb.append(' ');
+				}
+			}
+			sb.append("|\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generate a random board as above, except that the player is walled into a
+	 * short corridor which no ghost can reach, and any ghost completely enclosed
+	 * by walls is removed.
+	 */
+	private static String generateSafeBoard(Random random, int width, int height) {
+		String[] lines = generateBoard(random, width, height).split("\n");
+		char[][] rows = new char[height][];
+		for (int y = 0; y != height; ++y) {
+			rows[y] = lines[height - 1 - y].substring(2, width + 2).toCharArray();
+		}
+		final int cx = width / 2;
+		final int cy = height / 2;
+		for (int x = cx - 2; x <= cx + 2; ++x) {
+			rows[cy - 1][x] = '#';
+			rows[cy + 1][x] = '#';
+			rows[cy][x] = x == cx ? 'o' : Math.abs(x - cx) == 1 ? ' ' : '#';
+		}
+		for (int y = 0; y != height; ++y) {
+			for (int x = 0; x != width; ++x) {
+				if ("^v<>".indexOf(rows[y][x]) >= 0 && rows[(y + 1) % height][x] == '#'
+						&& rows[(y + height - 1) % height][x] == '#' && rows[y][(x + 1) % width] == '#'
+						&& rows[y][(x + width - 1) % width] == '#') {
+					rows[y][x] = ' ';
+				}
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int y = height - 1; y >= 0; --y) {
+			sb.append(y % 10).append('|').append(rows[y]).append("|\n");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,117 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.events.EventBuffer;
+import pacman.io.*;
+
+/**
+ * Checks the different ways in which an input sequence can be parsed.
+ */
+public class ParserTests {
+
+	private static final String BOARD = "7|###############|\n" +
+			"6|#.....>.......#|\n" +
+			"5|#  ##  #  ##  #|\n" +
+			"4|#  #       #  #|\n" +
+			"3|#  #  ###  #  #|\n" +
+			"2|## #   #   # ##|\n" +
+			"1|#      o      #|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	/**
+	 * A corridor without ghosts, whose only dot cannot be reached.
+	 */
+	private static final String CORRIDOR = "2|##########|\n" +
+			"1|#  o     #|\n" +
+			"0|#########.|\n" +
+			"  0123456789";
+
+	@Test
+	public void test_streamMatchesParse() {
+		// Long enough to span several chunks of input
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i != 5000; ++i) {
+			sb.append("RRLL");
+		}
+		String sequence = sb.toString();
+		Game expected = new Parser(sequence).parse(15, 8);
+		expected.initialiseBoard(BOARD);
+		expected.run();
+		// Stream from a reader
+		Game actual = new Game(15, 8);
+		actual.initialiseBoard(BOARD);
+		actual.run(new Parser(new StringReader(sequence)).stream());
+		assertEquals(expected.toString(), actual.toString());
+		// Stream from an input stream
+		actual = new Game(15, 8);
+		actual.initialiseBoard(BOARD);
+		actual.run(new Parser(new ByteArrayInputStream(sequence.getBytes(StandardCharsets.US_ASCII))).stream());
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void test_runLengthMatchesExpanded() {
+		StringBuilder compressed = new StringBuilder();
+		StringBuilder expanded = new StringBuilder();
+		for (int i = 0; i != 1000; ++i) {
+			compressed.append("R5L4L");
+			expanded.append("RRRRRLLLLL");
+		}
+		EventBuffer events = new Parser(compressed.toString()).parseEvents();
+		assertEquals(expanded.length(), events.size());
+		// Each run of a move takes the space of a single move
+		assertEquals(2000, events.runCount());
+		for (int i = 0; i != expanded.length(); ++i) {
+			assertEquals(new Parser(expanded.substring(i, i + 1)).parseEvents().get(0), events.get(i));
+		}
+		Game expected = new Parser(expanded.toString()).parse(10, 3);
+		expected.initialiseBoard(CORRIDOR);
+		expected.run();
+		Game actual = new Parser(compressed.toString()).parse(10, 3);
+		actual.initialiseBoard(CORRIDOR);
+		actual.run();
+		assertEquals(expected.toString(), actual.toString());
+		// Stream from a reader
+		actual = new Game(10, 3);
+		actual.initialiseBoard(CORRIDOR);
+		actual.run(new Parser(new StringReader(compressed.toString())).stream());
+		assertEquals(expected.toString(), actual.toString());
+		// A count of zero is not a move
+		assertThrows(GameError.class, () -> new Parser("R10L0").parseEvents());
+	}
+
+	@Test
+	public void test_tooManyEvents() {
+		assertEquals(Integer.MAX_VALUE, new Parser("R2147483640L7").parseEvents().size());
+		// The total number of events must fit in an int, whether the last is a
+		// single event or a run
+		assertThrows(GameError.class, () -> new Parser("R2147483647L").parseEvents());
+		assertThrows(GameError.class, () -> new Parser("R2147483647!").parseEvents());
+		assertThrows(GameError.class, () -> new Parser("R2147483640L8").parseEvents());
+		assertThrows(GameError.class, () -> new Parser("R2147483648").parseEvents());
+	}
+
+	@Test
+	public void test_streamSyntaxError() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i != 5000; ++i) {
+			sb.append("RL");
+		}
+		sb.append("X");
+		Game game = new Game(15, 8);
+		game.initialiseBoard(BOARD);
+		assertThrows(GameError.class, () -> game.run(new Parser(new StringReader(sb.toString())).stream()));
+	}
+}
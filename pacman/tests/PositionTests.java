@@ -0,0 +1,126 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.events.PlayerMove.Direction;
+import pacman.util.Position;
+
+/**
+ * Checks that moving off one edge of the board wraps around to the opposite
+ * edge, on boards of sizes other than 15x8.
+ */
+public class PositionTests {
+
+	/**
+	 * The board sizes (width, height) which are checked.
+	 */
+	private static final int[][] SIZES = { { 5, 3 }, { 1, 4 }, { 4, 1 }, { 1, 1 }, { 15, 8 } };
+
+	@Test
+	public void test_moveWithinEdges() {
+		// Each edge of a 5x3 board
+		assertEquals(new Position(0, 1), new Position(4, 1).moveWithin(Direction.RIGHT, 5, 3));
+		assertEquals(new Position(4, 1), new Position(0, 1).moveWithin(Direction.LEFT, 5, 3));
+		assertEquals(new Position(2, 0), new Position(2, 2).moveWithin(Direction.UP, 5, 3));
+		assertEquals(new Position(2, 2), new Position(2, 0).moveWithin(Direction.DOWN, 5, 3));
+		// A single column, where moving sideways leaves the position unchanged
+		assertEquals(new Position(0, 0), new Position(0, 3).moveWithin(Direction.UP, 1, 4));
+		assertEquals(new Position(0, 3), new Position(0, 0).moveWithin(Direction.DOWN, 1, 4));
+		assertEquals(new Position(0, 2), new Position(0, 2).moveWithin(Direction.LEFT, 1, 4));
+		assertEquals(new Position(0, 2), new Position(0, 2).moveWithin(Direction.RIGHT, 1, 4));
+		// A single row, where moving vertically leaves the position unchanged
+		assertEquals(new Position(0, 0), new Position(3, 0).moveWithin(Direction.RIGHT, 4, 1));
+		assertEquals(new Position(3, 0), new Position(0, 0).moveWithin(Direction.LEFT, 4, 1));
+		assertEquals(new Position(1, 0), new Position(1, 0).moveWithin(Direction.UP, 4, 1));
+		assertEquals(new Position(1, 0), new Position(1, 0).moveWithin(Direction.DOWN, 4, 1));
+	}
+
+	@Test
+	public void test_moveWithinEverySize() {
+		for (int[] size : SIZES) {
+			final int width = size[0];
+			final int height = size[1];
+			Game game = new Game(width, height);
+			for (int y = 0; y != height; ++y) {
+				for (int x = 0; x != width; ++x) {
+					for (Direction d : Direction.values()) {
+						Position expected = new Position(Math.floorMod(x + dx(d), width),
+								Math.floorMod(y + dy(d), height));
+						String msg = width + "x" + height + " " + new Position(x, y) + " " + d;
+						assertEquals(expected, new Position(x, y).moveWithin(d, width, height), msg);
+						// The cell-based neighbour in Game must agree
+						int cell = expected.getY() * width + expected.getX();
+						assertEquals(cell, game.neighbour(y * width + x, d), msg);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test_playerWraps_5x3() {
+		checkWrap(5, 3, "2|.....|\n1|o....|\n0|.....|\n  01234", Direction.LEFT, 4, 1);
+		checkWrap(5, 3, "2|.....|\n1|....o|\n0|.....|\n  01234", Direction.RIGHT, 0, 1);
+		checkWrap(5, 3, "2|..o..|\n1|.....|\n0|.....|\n  01234", Direction.UP, 2, 0);
+		checkWrap(5, 3, "2|.....|\n1|.....|\n0|..o..|\n  01234", Direction.DOWN, 2, 2);
+	}
+
+	@Test
+	public void test_playerWraps_1x4() {
+		String top = "3|o|\n2|.|\n1|.|\n0|.|\n  0";
+		String bottom = "3|.|\n2|.|\n1|.|\n0|o|\n  0";
+		checkWrap(1, 4, top, Direction.UP, 0, 0);
+		checkWrap(1, 4, bottom, Direction.DOWN, 0, 3);
+		// Moving sideways wraps straight back onto the same cell
+		checkWrap(1, 4, bottom, Direction.LEFT, 0, 0);
+		checkWrap(1, 4, bottom, Direction.RIGHT, 0, 0);
+	}
+
+	@Test
+	public void test_playerWraps_4x1() {
+		checkWrap(4, 1, "0|o...|\n  0123", Direction.LEFT, 3, 0);
+		checkWrap(4, 1, "0|...o|\n  0123", Direction.RIGHT, 0, 0);
+		// Moving vertically wraps straight back onto the same cell
+		checkWrap(4, 1, "0|.o..|\n  0123", Direction.UP, 1, 0);
+		checkWrap(4, 1, "0|.o..|\n  0123", Direction.DOWN, 1, 0);
+	}
+
+	/**
+	 * Check that the player, on a given board, ends up at a given position after
+	 * moving once in a given direction.
+	 */
+	private static void checkWrap(int width, int height, String board, Direction direction, int x, int y) {
+		Game game = new Game(width, height);
+		game.initialiseBoard(board);
+		assertEquals(Game.Outcome.ONGOING, game.step(direction));
+		assertEquals(new Position(x, y), game.locatePlayer());
+	}
+
+	private static int dx(Direction direction) {
+		switch (direction) {
+			case LEFT:
+				return -1;
+			case RIGHT:
+				return 1;
+			default:
+				return 0;
+		}
+	}
+
+	private static int dy(Direction direction) {
+		switch (direction) {
+			case DOWN:
+				return -1;
+			case UP:
+				return 1;
+			default:
+				return 0;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.io.Parser;
+
+/**
+ * Checks that rendering a board through <code>render()</code> and
+ * <code>writeTo()</code> gives the same text as <code>toString()</code>.
+ */
+public class RenderTests {
+
+	@Test
+	public void test_poweredPlayerAndGhostsOnDots() throws IOException {
+		// The player eats a pill, and two of the ghosts move onto dots
+		String board = "4|#######|\n" +
+				"3|#.v..>#|\n" +
+				"2|#.###.#|\n" +
+				"1|#*o.^.#|\n" +
+				"0|#######|\n" +
+				"  0123456";
+		Game game = new Parser("LR").parse(7, 5);
+		game.initialiseBoard(board);
+		checkRender(board, game);
+		game.run();
+		String expected = "4|#######|\n" +
+				"3|#. .>^#|\n" +
+				"2|#.### #|\n" +
+				"1|# O. .#|\n" +
+				"0|#######|\n" +
+				"  0123456";
+		checkRender(expected, game);
+	}
+
+	@Test
+	public void test_tallBoard() throws IOException {
+		// More than ten rows and columns, so the axis labels wrap around
+		StringBuilder sb = new StringBuilder();
+		for (int y = 11; y >= 0; --y) {
+			sb.append(y % 10).append('|').append(y == 0 ? "o.........<." : "..#.........").append("|\n");
+		}
+		sb.append("  012345678901");
+		Game game = new Game(12, 12);
+		game.initialiseBoard(sb.toString());
+		checkRender(sb.toString(), game);
+	}
+
+	/**
+	 * Check that each way of rendering a game gives the expected board.
+	 */
+	private static void checkRender(String expected, Game game) throws IOException {
+		assertEquals(expected, game.toString());
+		StringBuilder sb = new StringBuilder();
+		game.render(sb);
+		assertEquals(expected, sb.toString());
+		// Both directly and through a buffered writer
+		StringWriter writer = new StringWriter();
+		game.writeTo(writer);
+		assertEquals(expected, writer.toString());
+		writer = new StringWriter();
+		game.writeTo(new BufferedWriter(writer));
+		assertEquals(expected, writer.toString());
+	}
+}
@@ -0,0 +1,100 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.Game.Outcome;
+import pacman.events.GameOver;
+import pacman.events.PlayerMove.Direction;
+import pacman.io.*;
+
+/**
+ * Checks that a game can be played one step at a time, with each step
+ * reporting its outcome rather than throwing an exception.
+ */
+public class StepTests {
+
+	@Test
+	public void test_stepUntilWon() {
+		Game game = new Game(5, 3);
+		game.initialiseBoard("2|#####|\n" +
+				"1|#o..#|\n" +
+				"0|#####|\n" +
+				"  01234");
+		assertEquals(Outcome.ONGOING, game.step(Direction.RIGHT));
+		assertEquals(Outcome.WON, game.step(Direction.RIGHT));
+		// Moving after the game is over is rejected, and leaves the board alone
+		String board = game.toString();
+		assertEquals(Outcome.INVALID, game.step(Direction.RIGHT));
+		assertEquals("Cannot move as game is over", game.getInvalidReason());
+		assertEquals(board, game.toString());
+		assertEquals(Outcome.INVALID, game.step(new GameOver(false)));
+		assertEquals(Outcome.WON, game.step(new GameOver(true)));
+		assertEquals(3, game.getEventsApplied());
+	}
+
+	@Test
+	public void test_stepUntilLost() {
+		Game game = new Game(6, 3);
+		game.initialiseBoard("2|######|\n" +
+				"1|#o.<.#|\n" +
+				"0|######|\n" +
+				"  012345");
+		assertEquals(Outcome.INVALID, game.step(new GameOver(true)));
+		assertEquals("Incorrect game over event", game.getInvalidReason());
+		assertEquals(Outcome.LOST, game.step(Direction.RIGHT));
+		assertEquals(Outcome.LOST, game.step(new GameOver(false)));
+	}
+
+	@Test
+	public void test_runMatchesSteps() {
+		String board = "3|#####|\n" +
+				"2|#...#|\n" +
+				"1|#o..#|\n" +
+				"0|#####|\n" +
+				"  01234";
+		Game game = new Parser("RRULL!").parse(5, 4);
+		game.initialiseBoard(board);
+		game.run();
+		Game other = new Game(5, 4);
+		other.initialiseBoard(board);
+		for (char c : "RRULL!".toCharArray()) {
+			Outcome outcome = other.step(new Parser(Character.toString(c)).parseEvents().get(0));
+			assertNotEquals(Outcome.INVALID, outcome);
+		}
+		assertEquals(game.toString(), other.toString());
+	}
+
+	@Test
+	public void test_ghostOverwritesItselfOnDot() {
+		// On a board one cell wide, moving left or right wraps around to the same
+		// cell. Once the ghost is on the dot and blocked by the wall, it therefore
+		// moves onto itself and is overwritten by the dot it was on.
+		String board = "5| |\n" +
+				"4|v|\n" +
+				"3|.|\n" +
+				"2|#|\n" +
+				"1|o|\n" +
+				"0| |\n" +
+				"  0";
+		Game won = new Parser("UU!").parse(1, 6);
+		won.initialiseBoard(board);
+		assertThrows(GameError.class, () -> won.run());
+		assertTrue(won.dotsExist());
+		Game game = new Parser("UUU").parse(1, 6);
+		game.initialiseBoard(board);
+		game.run();
+		assertEquals("5| |\n" +
+				"4| |\n" +
+				"3|.|\n" +
+				"2|#|\n" +
+				"1|o|\n" +
+				"0| |\n" +
+				"  0", game.toString());
+	}
+}
@@ -0,0 +1,117 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import pacman.Game;
+import pacman.Game.Outcome;
+import pacman.TraceReader;
+import pacman.TraceRecorder;
+import pacman.events.PlayerMove.Direction;
+
+/**
+ * Checks that the board after each step can be rebuilt from a recorded trace.
+ */
+public class TraceTests {
+
+	private static final String BOARD = "7|###############|\n" +
+			"6|#.....>....v..#|\n" +
+			"5|#..##..#..##..#|\n" +
+			"4|#..#.......#..#|\n" +
+			"3|#^.#..###..#.<#|\n" +
+			"2|##.#...#.#.# ##|\n" +
+			"1|#*.....o......#|\n" +
+			"0|###############|\n" +
+			"  012345678901234";
+
+	private static final String MOVES = "LLLLLLUUUDDDRRRRRRRRRRRRLLLLUUUU";
+
+	@Test
+	public void test_rebuildEachStep() throws IOException {
+		Game game = new Game(15, 8);
+		game.initialiseBoard(BOARD);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ArrayList<String> boards = new ArrayList<>();
+		ArrayList<Long> hashes = new ArrayList<>();
+		try (TraceRecorder recorder = new TraceRecorder(bytes)) {
+			game.setTraceRecorder(recorder);
+			boards.add(game.toString());
+			hashes.add(game.stateHash());
+			for (int i = 0; i != MOVES.length(); ++i) {
+				Outcome outcome = game.step(direction(MOVES.charAt(i)));
+				if (outcome == Outcome.INVALID) {
+					continue;
+				}
+				boards.add(game.toString());
+				hashes.add(game.stateHash());
+				if (outcome != Outcome.ONGOING) {
+					break;
+				}
+			}
+			assertEquals(boards.size() - 1, recorder.getStepCount());
+		}
+		TraceReader trace = TraceReader.read(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(15, trace.getWidth());
+		assertEquals(8, trace.getHeight());
+		assertEquals(boards.size() - 1, trace.getStepCount());
+		for (int i = boards.size() - 1; i >= 0; --i) {
+			Game rebuilt = trace.getGame(i);
+			assertEquals(boards.get(i), rebuilt.toString());
+			assertEquals((long) hashes.get(i), rebuilt.stateHash());
+		}
+	}
+
+	@Test
+	public void test_sizeFollowsActivity() throws IOException {
+		// A large board, on which only the player moves
+		final int width = 500;
+		final int height = 500;
+		StringBuilder board = new StringBuilder();
+		for (int y = height - 1; y >= 0; --y) {
+			board.append(y).append('|');
+			for (int x = 0; x != width; ++x) {
+				board.append(x == 0 && y == 0 ? 'o' : '.');
+			}
+			board.append("|\n");
+		}
+		Game game = new Game(width, height);
+		game.initialiseBoard(board.toString());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (TraceRecorder recorder = new TraceRecorder(bytes)) {
+			game.setTraceRecorder(recorder);
+			recorder.flush();
+			int initial = bytes.size();
+			for (int i = 0; i != 1000; ++i) {
+				game.step(i % 200 < 100 ? Direction.RIGHT : Direction.UP);
+			}
+			recorder.flush();
+			// Each step changes two cells
+			assertTrue(bytes.size() - initial < 1000 * 16);
+		}
+		TraceReader trace = TraceReader.read(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(1000, trace.getStepCount());
+		assertEquals(game.toString(), trace.getGame(1000).toString());
+	}
+
+	private static Direction direction(char c) {
+		switch (c) {
+			case 'U':
+				return Direction.UP;
+			case 'D':
+				return Direction.DOWN;
+			case 'L':
+				return Direction.LEFT;
+			default:
+				return Direction.RIGHT;
+		}
+	}
+}
@@ -4,13 +4,26 @@
 package pacman.tiles;
 
 /**
- * Represents a dot on the board.
+ * Represents a dot on the board. Since dots have no state, every dot on the
+ * board is the shared <code>DOT</code> constant.
  *
  * @author David J. Pearce
  *
  */
 public class Dot implements Tile {
 
+	public final static Dot DOT = new Dot();
+
+	/**
+	 * Construct a new dot. Since a dot has no state, the shared
+	 * <code>DOT</code> constant should be used instead.
+	 *
+	 * @deprecated Use <code>Dot.DOT</code>.
+	 */
+	@Deprecated
+	public Dot() {
+	}
+
 	@Override
 	public String toString() {
 		return ".";
@@ -1,13 +1,15 @@
 package pacman.tiles;
 
-import java.util.ArrayList;
-
 import pacman.Game;
+import pacman.TickContext;
 import pacman.events.PlayerMove.Direction;
 import pacman.util.Position;
 
 /**
- * Represents a ghost on the board.
+ * Represents a ghost on the board. The state of the ghosts on a board is held
+ * by the game itself in compact arrays, and so a ghost returned from
+ * <code>Game.getTile()</code> is just an immutable view of the state of that
+ * ghost at the time.
  *
  * @author Leon J. Bowie
  *
@@ -17,12 +19,12 @@ public class Ghost implements Tile {
     /**
      * Current direction the ghost is travelling in.
      */
-    private Direction direction;
+    private final Direction direction;
 
     /**
      * If the ghost is currently on a dot.
      */
-    private boolean onDot;
+    private final boolean onDot;
 
     /**
      * Construct a new ghost object for a given direction.
@@ -34,6 +36,36 @@ public class Ghost implements Tile {
         this.onDot = false;
     }
 
+    /**
+     * Construct a new ghost object for a given direction and dot state.
+     *
+     * @param direction Indicates which direction the ghost is moving
+     * @param onDot     Indicates whether the ghost is currently on a dot
+     */
+    public Ghost(Direction direction, boolean onDot) {
+        this.direction = direction;
+        this.onDot = onDot;
+    }
+
+    /**
+     * Construct a new ghost object in the same state as a given ghost.
+     *
+     * @param other The ghost to copy.
+     */
+    public Ghost(Ghost other) {
+        this.direction = other.direction;
+        this.onDot = other.onDot;
+    }
+
+    /**
+     * Get the direction the ghost is currently travelling in.
+     * 
+     * @return the direction of the ghost.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
     /**
      * Indicate if the ghost is currently on a dot.
      * 
@@ -62,83 +94,64 @@ public class Ghost implements Tile {
     }
 
     /**
-     * Get the options to move to from the current direction.
-     * 
-     * @param game The game object.
-     * @param pp   The position of the ghost.
+     * The order in which the ghost considers its options for each direction of
+     * travel (indexed by ordinal): turn left, straight on, turn right and then
+     * turn back.
      */
-    private Position[] getOptions(Game game, Position pp) {
-        Position[] positions = new Position[4];
-        if (direction == Direction.UP) {
-            positions[0] = pp.moveWithin(Direction.LEFT, game.getWidth(), game.getHeight());
-            positions[1] = pp.moveWithin(Direction.UP, game.getWidth(), game.getHeight());
-            positions[2] = pp.moveWithin(Direction.RIGHT, game.getWidth(), game.getHeight());
-            positions[3] = pp.moveWithin(Direction.DOWN, game.getWidth(), game.getHeight());
-        } else if (direction == Direction.RIGHT) {
-            positions[0] = pp.moveWithin(Direction.UP, game.getWidth(), game.getHeight());
-            positions[1] = pp.moveWithin(Direction.RIGHT, game.getWidth(), game.getHeight());
-            positions[2] = pp.moveWithin(Direction.DOWN, game.getWidth(), game.getHeight());
-            positions[3] = pp.moveWithin(Direction.LEFT, game.getWidth(), game.getHeight());
-        } else if (direction == Direction.DOWN) {
-            positions[0] = pp.moveWithin(Direction.RIGHT, game.getWidth(), game.getHeight());
-            positions[1] = pp.moveWithin(Direction.DOWN, game.getWidth(), game.getHeight());
-            positions[2] = pp.moveWithin(Direction.LEFT, game.getWidth(), game.getHeight());
-            positions[3] = pp.moveWithin(Direction.UP, game.getWidth(), game.getHeight());
-        } else {
-            positions[0] = pp.moveWithin(Direction.DOWN, game.getWidth(), game.getHeight());
-            positions[1] = pp.moveWithin(Direction.LEFT, game.getWidth(), game.getHeight());
-            positions[2] = pp.moveWithin(Direction.UP, game.getWidth(), game.getHeight());
-            positions[3] = pp.moveWithin(Direction.RIGHT, game.getWidth(), game.getHeight());
-        }
-        return positions;
-    }
+    private static final Direction[][] OPTIONS = {
+            { Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.DOWN }, // UP
+            { Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP }, // DOWN
+            { Direction.DOWN, Direction.LEFT, Direction.UP, Direction.RIGHT }, // LEFT
+            { Direction.UP, Direction.RIGHT, Direction.DOWN, Direction.LEFT } // RIGHT
+    };
 
     /**
-     * Update the current direction of the ghost based on the new position.
-     * 
-     * @param options The options the ghost had to move to.
-     * @param np      The position the ghost has moved to.
+     * What a ghost does in a cell with given open neighbours (as returned by
+     * <code>Game.getOpenNeighbours()</code>) when travelling in a given
+     * direction, indexed by <code>mask * 4 + direction.ordinal()</code>. An entry
+     * is the index into <code>OPTIONS</code> of the option taken, or -1 if the
+     * cell is a junction for the ghost (i.e. it has a choice of at least three
+     * options) and so it must consider the distance to the player. A ghost
+     * never has a choice in a dead end or corridor, unless it is facing away from
+     * a wall.
      */
-    public void updateDirection(Position[] options, Position np) {
-        if (direction == Direction.UP) {
-            if (options[0].equals(np)) {
-                direction = Direction.LEFT;
-            } else if (options[1].equals(np)) {
-                direction = Direction.UP;
-            } else if (options[2].equals(np)) {
-                direction = Direction.RIGHT;
-            } else {
-                direction = Direction.DOWN;
-            }
-        } else if (direction == Direction.RIGHT) {
-            if (options[0].equals(np)) {
-                direction = Direction.UP;
-            } else if (options[1].equals(np)) {
-                direction = Direction.RIGHT;
-            } else if (options[2].equals(np)) {
-                direction = Direction.DOWN;
-            } else {
-                direction = Direction.LEFT;
-            }
-        } else if (direction == Direction.DOWN) {
-            if (options[0].equals(np)) {
-                direction = Direction.RIGHT;
-            } else if (options[1].equals(np)) {
-                direction = Direction.DOWN;
-            } else if (options[2].equals(np)) {
-                direction = Direction.LEFT;
-            } else {
-                direction = Direction.UP;
-            }
-        } else {
-            if (options[0].equals(np)) {
-                direction = Direction.DOWN;
-            } else if (options[1].equals(np)) {
-                direction = Direction.LEFT;
-            } else if (options[2].equals(np)) {
-                direction = Direction.UP;
-            } else {
-                direction = Direction.RIGHT;
+    private static final byte[] TRANSITIONS = new byte[64];
+
+    static {
+        for (int mask = 0; mask != 16; ++mask) {
+            for (Direction d : Direction.values()) {
+                final Direction[] options = OPTIONS[d.ordinal()];
+                final boolean b0 = (mask & (1 << options[0].ordinal())) == 0;
+                final boolean b1 = (mask & (1 << options[1].ordinal())) == 0;
+                final boolean b2 = (mask & (1 << options[2].ordinal())) == 0;
+                final boolean b3 = (mask & (1 << options[3].ordinal())) == 0;
+                int option;
+
+                // deal with dead end (one option)
+                if (b0 && b1 && b2) {
+                    option = 3;
+                } else if (b0 && b1 && b3) {
+                    option = 2;
+                } else if (b0 && b2 && b3) {
+                    option = 1;
+                } else if (b1 && b2 && b3) {
+                    option = 0;
+                }
+
+                // deal with two options
+                else if (b0 && b1) {
+                    option = 2;
+                } else if (b0 && b2) {
+                    option = 1;
+                } else if (b1 && b2) {
+                    option = 0;
+                }
+
+                // deal with 3 options
+                else {
+                    option = -1;
+                }
+                TRANSITIONS[mask << 2 | d.ordinal()] = (byte) option;
             }
         }
     }
@@ -150,177 +163,49 @@ public class Ghost implements Tile {
      * @param pp   The position of the ghost.
      */
     public void move(Game game, Position pp) {
-        Position[] options = getOptions(game, pp);
-        Tile[] tiles = { game.getTile(options[0]), game.getTile(options[1]), game.getTile(options[2]),
-                game.getTile(options[3]) };
-        Position np;
-
-        // deal with dead end (one option)
-        if (tiles[0].isObstruction() && tiles[1].isObstruction() && tiles[2].isObstruction()) {
-            np = options[3];
-        } else if (tiles[0].isObstruction() && tiles[1].isObstruction() && tiles[3].isObstruction()) {
-            np = options[2];
-        } else if (tiles[0].isObstruction() && tiles[2].isObstruction() && tiles[3].isObstruction()) {
-            np = options[1];
-        } else if (tiles[1].isObstruction() && tiles[2].isObstruction() && tiles[3].isObstruction()) {
-            np = options[0];
-        }
-
-        // deal with two options
-        else if (tiles[0].isObstruction() && tiles[1].isObstruction()) {
-            np = options[2];
-        } else if (tiles[0].isObstruction() && tiles[2].isObstruction()) {
-            np = options[1];
-        } else if (tiles[1].isObstruction() && tiles[2].isObstruction()) {
-            np = options[0];
-        }
-
-        // deal with 3 options
-        else {
-            np = intersection(game, pp);
-        }
-
-        // deal with player collision
-        if (game.getTile(np) instanceof Player) {
-            Player player = (Player) game.getTile(game.locatePlayer());
-            boolean frightened = player.powerUpActive();
-            if (frightened) {
-                // kill itself
-                game.setTile(pp, Air.AIR);
-                return;
-            }
-            game.setTile(np, Air.AIR);
-        }
-
-        Tile pt = game.getTile(np);
-        // if the ghost is on a dot, this is updated at the end to preserve current
-        // state of it has a dot.
-        boolean updateOnDot = false;
-
-        if (pt instanceof Dot) {
-            game.setTile(np, Air.AIR);
-            updateOnDot = true;
-        }
-        updateDirection(options, np);
-        game.swapTile(pp, np);
-
-        // if the ghost was on a dot place it back.
-        if (onDot) {
-            game.setTile(pp, new Dot());
-            onDot = false;
-        }
-        // update the on dot state
-        if (updateOnDot) {
-            onDot = true;
-        }
+        game.moveGhost(pp.getY() * game.getWidth() + pp.getX());
     }
 
     /**
-     * Get the best position to move to at an intersection.
+     * Decide where a ghost will move to, without changing the game. Since only
+     * walls are obstructions, the decision depends only on the ghost's cell and
+     * direction, the walls of the board and the information prepared at the start
+     * of the tick (including by the ghost strategy). Hence, the decisions of
+     * different ghosts can safely be made concurrently. Note that a ghost which is
+     * completely enclosed by walls decides to move into one of them.
      * 
-     * @param game the game
-     * @param pp   the position of the ghost
-     * @return the best position to move to
+     * @param game      The game object.
+     * @param tick      Information about the player for the current tick.
+     * @param cell      The cell index of the ghost.
+     * @param direction The ordinal of the direction the ghost is travelling in.
+     * @return The decision, encoded as the cell to move to multiplied by four,
+     *         plus the ordinal of the new direction.
      */
-    private Position intersection(Game game, Position pp) {
-        ArrayList<Option> options = new ArrayList<Option>();
-        Direction[] directions = { Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT };
-
-        // Get all the valid options of positions to move to.
-        for (Direction d : directions) {
-            Position np = pp.moveWithin(d, game.getWidth(), game.getHeight());
-            double npDistance = game.distanceToPlayer(np);
-            if (!game.getTile(np).isObstruction()) {
-                options.add(new Option(np, npDistance));
-            }
-        }
-
-        Player player = (Player) game.getTile(game.locatePlayer());
-        boolean frightened = player.powerUpActive();
-
-        return getIntersectionMove(options, frightened);
-    }
-
-    /**
-     * Get the best move at an intersection from the available positions.
-     * 
-     * @param options    The available positions that can be moved to.
-     * @param frightened If the ghost is currently frightened.
-     * 
-     * @return The best position to move to.
-     */
-    private Position getIntersectionMove(ArrayList<Option> options, boolean frightened) {
-        double target;
-        if (frightened) {
-            // get furthest away
-            target = Double.MIN_VALUE;
-            for (Option o : options) {
-                if (o.getDistance() > target) {
-                    target = o.getDistance();
-                }
-            }
+    public static int decide(Game game, TickContext tick, int cell, int direction) {
+        final Direction[] options = OPTIONS[direction];
+        final int mask = game.getOpenNeighbours(cell);
+        int option = TRANSITIONS[mask << 2 | direction];
+        int np;
+        if (option >= 0) {
+            np = game.neighbour(cell, options[option]);
         } else {
-            // get closest
-            target = Double.MAX_VALUE;
-            for (Option o : options) {
-                if (o.getDistance() < target) {
-                    target = o.getDistance();
-                }
+            // deal with 3 options
+            np = tick.getStrategy().choose(game, tick, cell, mask);
+            option = 0;
+            while (game.neighbour(cell, options[option]) != np) {
+                option = option + 1;
             }
         }
-
-        // get first option with target distance
-        for (Option o : options) {
-            if (o.getDistance() == target) {
-                return o.getPosition();
+        // On a board which is only one or two cells across, different options can
+        // lead to the same cell, in which case the first of them is taken.
+        if (game.getWidth() <= 2 || game.getHeight() <= 2) {
+            for (int i = 0; i < option; ++i) {
+                if (game.neighbour(cell, options[i]) == np) {
+                    option = i;
+                    break;
+                }
             }
         }
-
-        return null;
-    }
-}
-
-/**
- * This class represents an option for the ghost to move to.
- */
-class Option {
-
-    /**
-     * The position of the option.
-     */
-    private Position position;
-
-    /**
-     * The distance of the option to the player.
-     */
-    private double distance;
-
-    /**
-     * Construct a option object for a ghost position.
-     *
-     * @param position The position of the option.
-     * @param distance The distance of the option to the player.
-     */
-    public Option(Position position, double distance) {
-        this.position = position;
-        this.distance = distance;
-    }
-
-    /**
-     * Get the position of the option.
-     * 
-     * @return The position of the option.
-     */
-    public Position getPosition() {
-        return position;
-    }
-
-    /**
-     * Get the distance of the option to the player.
-     * 
-     * @return The distance of the option to the player.
-     */
-    public double getDistance() {
-        return distance;
+        return (np << 2) | options[option].ordinal();
     }
 }
@@ -1,13 +1,26 @@
 package pacman.tiles;
 
 /**
- * Represents a powerup pill on the board.
+ * Represents a powerup pill on the board. Since pills have no state, every pill
+ * on the board is the shared <code>PILL</code> constant.
  *
  * @author Leon J. Bowie
  *
  */
 public class Pill implements Tile {
 
+    public final static Pill PILL = new Pill();
+
+    /**
+     * Construct a new pill. Since a pill has no state, the shared
+     * <code>PILL</code> constant should be used instead.
+     *
+     * @deprecated Use <code>Pill.PILL</code>.
+     */
+    @Deprecated
+    public Pill() {
+    }
+
     @Override
     public String toString() {
         return "*";
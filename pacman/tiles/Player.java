@@ -23,6 +23,40 @@ public class Player implements Tile {
 	 */
 	private int powerupLeft = 0;
 
+	/**
+	 * Construct a new player without any powerup.
+	 */
+	public Player() {
+	}
+
+	/**
+	 * Construct a new player with a given number of rounds of powerup left.
+	 *
+	 * @param powerupLeft Rounds of powerup left.
+	 */
+	public Player(int powerupLeft) {
+		this.powerupLeft = powerupLeft;
+	}
+
+	/**
+	 * Construct a new player in the same state as a given player.
+	 *
+	 * @param other The player to copy.
+	 */
+	public Player(Player other) {
+		this.powerupLeft = other.powerupLeft;
+	}
+
+	/**
+	 * Get the number of rounds the powerup has left. A value of 0 or below means
+	 * not active.
+	 *
+	 * @return Rounds of powerup left.
+	 */
+	public int getPowerupLeft() {
+		return powerupLeft;
+	}
+
 	/**
 	 * If the player has an active powerup ability.
 	 * 
@@ -45,12 +79,30 @@ public class Player implements Tile {
 		return false;
 	}
 
+	/**
+	 * Move the player one position in a given direction.
+	 *
+	 * @param game      The game object.
+	 * @param pp        The position of the player.
+	 * @param direction The direction to move in.
+	 */
 	public void move(Game game, Position pp, Direction direction) {
+		move(game, pp.getY() * game.getWidth() + pp.getX(), direction);
+	}
+
+	/**
+	 * Move the player one position in a given direction.
+	 *
+	 * @param game      The game object.
+	 * @param cell      The cell index of the player.
+	 * @param direction The direction to move in.
+	 */
+	public void move(Game game, int cell, Direction direction) {
 		// Decrease the powerup timer.
 		powerupLeft--;
 
 		// Calculate player's new position
-		Position np = pp.moveWithin(direction, game.getWidth(), game.getHeight());
+		int np = game.neighbour(cell, direction);
 		Tile pt = game.getTile(np);
 
 		// cannot move there
@@ -64,7 +116,7 @@ public class Player implements Tile {
 			if (powerUpActive()) {
 				game.setTile(np, Air.AIR);
 			} else {
-				game.setTile(pp, Air.AIR);
+				game.setTile(cell, Air.AIR);
 				return;
 			}
 		}
@@ -80,6 +132,6 @@ public class Player implements Tile {
 			game.setTile(np, Air.AIR);
 		}
 
-		game.swapTile(pp, np);
+		game.swapTile(cell, np);
 	}
 }
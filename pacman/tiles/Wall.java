@@ -5,12 +5,26 @@ package pacman.tiles;
 
 /**
  * Represents a wall on the board which neither the player nor a ghost can pass
- * through.
+ * through. Since walls have no state, every wall on the board is the shared
+ * <code>WALL</code> constant.
  *
  * @author David J. Pearce
  *
  */
 public class Wall implements Tile {
+
+	public final static Wall WALL = new Wall();
+
+	/**
+	 * Construct a new wall. Since a wall has no state, the shared
+	 * <code>WALL</code> constant should be used instead.
+	 *
+	 * @deprecated Use <code>Wall.WALL</code>.
+	 */
+	@Deprecated
+	public Wall() {
+	}
+
 	@Override
 	public String toString() {
 		return "#";
@@ -0,0 +1,183 @@
+// This program is copyright VUW.  You are granted permission to use it to
+// construct your answer to a SWEN221 assignment. You may not distribute
+// it in any other way without permission.
+package pacman.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from board cells to integer values. A cell is identified by its index
+ * <code>y * width + x</code> on the board, and so is never negative. The map
+ * uses open addressing over primitive arrays, which means that lookups and
+ * updates do not allocate any objects.
+ */
+public final class CellMap {
+	/**
+	 * Marks a slot in the key table as unused.
+	 */
+	private static final int EMPTY = -1;
+
+	/**
+	 * The keys (i.e. cell indices) stored in this map.
+	 */
+	private int[] keys;
+
+	/**
+	 * The values associated with each key.
+	 */
+	private int[] values;
+
+	/**
+	 * Number of entries in this map.
+	 */
+	private int size;
+
+	/**
+	 * Construct an empty map.
+	 */
+	public CellMap() {
+		this(16);
+	}
+
+	/**
+	 * Construct an empty map with room for a given number of entries before it
+	 * needs to grow.
+	 *
+	 * @param expected Number of entries expected.
+	 */
+	public CellMap(int expected) {
+		int capacity = 16;
+		while (capacity < expected * 2) {
+			capacity <<= 1;
+		}
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Construct a map containing the same entries as a given map.
+	 *
+	 * @param other Map to copy.
+	 */
+	public CellMap(CellMap other) {
+		this.keys = other.keys.clone();
+		this.values = other.values.clone();
+		this.size = other.size;
+	}
+
+	/**
+	 * Get the number of entries in this map.
+	 *
+	 * @return Number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the value associated with a given cell.
+	 *
+	 * @param cell Cell index to look up.
+	 * @return The associated value, or -1 if there is none.
+	 */
+	public int get(int cell) {
+		final int mask = keys.length - 1;
+		for (int i = hash(cell) & mask;; i = (i + 1) & mask) {
+			int k = keys[i];
+			if (k == cell) {
+				return values[i];
+			} else if (k == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Associate a value with a given cell, replacing any existing value.
+	 *
+	 * @param cell  Cell index to update.
+	 * @param value Value to associate with the cell.
+	 */
+	public void put(int cell, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+		final int mask = keys.length - 1;
+		int i = hash(cell) & mask;
+		while (keys[i] != EMPTY && keys[i] != cell) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == EMPTY) {
+			keys[i] = cell;
+			size = size + 1;
+		}
+		values[i] = value;
+	}
+
+	/**
+	 * Remove the entry for a given cell (if there is one).
+	 *
+	 * @param cell Cell index to remove.
+	 * @return The value which was associated with the cell, or -1 if there was
+	 *         none.
+	 */
+	public int remove(int cell) {
+		final int mask = keys.length - 1;
+		int i = hash(cell) & mask;
+		while (keys[i] != cell) {
+			if (keys[i] == EMPTY) {
+				return -1;
+			}
+			i = (i + 1) & mask;
+		}
+		int value = values[i];
+		// Shift back any entries in the same probe sequence, so that lookups never
+		// stop early at the hole we've just made.
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			int k = keys[j];
+			if (k == EMPTY) {
+				break;
+			}
+			int home = hash(k) & mask;
+			// Move k back only if its home slot is not cyclically within (i,j]
+			if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+				keys[i] = k;
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = EMPTY;
+		size = size - 1;
+		return value;
+	}
+
+	/**
+	 * Remove all entries from this map.
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+		for (int i = 0; i != oldKeys.length; ++i) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(int cell) {
+		int h = cell * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -27,11 +27,14 @@ public final class Position {
 	}
 
 	/**
-	 * Calculate a relative position after moving a number of steps in a given
-	 * direction from a starting point.
+	 * Calculate a relative position after moving one step in a given direction
+	 * from a starting point. Moving off one edge of the board wraps around to the
+	 * opposite edge.
 	 *
 	 * @param direction
 	 *                  --- Direction to move in
+	 * @param width     --- Width of the board
+	 * @param height    --- Height of the board
 	 * @return New position in given direction
 	 */
 	public Position moveWithin(Direction direction, int width, int height) {
@@ -53,14 +56,14 @@ public final class Position {
 		}
 
 		// Deal with going across the board
-		if (x >= 15 && direction == Direction.RIGHT) {
+		if (x >= width) {
 			x = 0;
-		} else if (x < 0 && direction == Direction.LEFT) {
-			x = 14;
-		} else if (y >= 8 && direction == Direction.UP) {
+		} else if (x < 0) {
+			x = width - 1;
+		} else if (y >= height) {
 			y = 0;
-		} else if (y < 0 && direction == Direction.DOWN) {
-			y = 7;
+		} else if (y < 0) {
+			y = height - 1;
 		}
 
 		// Done